@@ -0,0 +1,71 @@
+package part1;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same block of seeded races on one ArrayRaceEngine and on a
+ * LockstepRaceEngine with each kernel. All three give identical results,
+ * so the scores are directly comparable. Reported per race.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@OperationsPerInvocation(LockstepBenchmark.RACES)
+public class LockstepBenchmark
+{
+    static final int RACES = 4096;
+
+    @Param({"2", "5", "10"})
+    int fieldSize;
+
+    @Param({"10", "50", "100"})
+    int trackLength;
+
+    private ArrayRaceEngine arrayEngine;
+    private LockstepRaceEngine scalarEngine;
+    private LockstepRaceEngine vectorEngine;
+
+    @Setup
+    public void setUp()
+    {
+        Horse [] horses = RaceBenchmark.field(fieldSize);
+        arrayEngine = new ArrayRaceEngine(trackLength, horses, RandomSource.seeded(42));
+        scalarEngine = new LockstepRaceEngine(trackLength, horses, 42, new ScalarLockstepKernel(), LockstepRaceEngine.DEFAULT_SLOTS);
+        vectorEngine = new LockstepRaceEngine(trackLength, horses, 42, LockstepRaceEngine.bestKernel(), LockstepRaceEngine.DEFAULT_SLOTS);
+        if(vectorEngine.getKernel() instanceof ScalarLockstepKernel){
+            throw new IllegalStateException("The Vector API is not available, so there is no vector kernel to measure");
+        }
+    }
+
+    @Benchmark
+    public RaceStatistics arrayEngine()
+    {
+        return arrayEngine.runRaces(0, RACES);
+    }
+
+    @Benchmark
+    public RaceStatistics lockstepScalar()
+    {
+        return scalarEngine.runRaces(0, RACES);
+    }
+
+    @Benchmark
+    public RaceStatistics lockstepVector()
+    {
+        return vectorEngine.runRaces(0, RACES);
+    }
+}
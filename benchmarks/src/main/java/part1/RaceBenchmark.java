@@ -0,0 +1,119 @@
+package part1;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single tick of the console race (every horse moved once and the
+ * finish checked), the same tick with its frame handed to a drawing
+ * thread, a whole race run headless from start to finish, and a batch of
+ * headless races added to the same statistics, which should allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaceBenchmark
+{
+    @Param({"2", "5", "10"})
+    int fieldSize;
+
+    @Param({"10", "50", "100"})
+    int trackLength;
+
+    private Race race;
+    private Horse [] horses;
+    private double [] startingConfidence;
+    private FramePipeline frames;
+    private RaceStatistics batchStatistics;
+
+    @Setup
+    public void setUp()
+    {
+        horses = field(fieldSize);
+        startingConfidence = new double[horses.length];
+        for(int i=0; i<horses.length; i++){
+            startingConfidence[i] = horses[i].getConfidence();
+        }
+        race = new Race(trackLength);
+        race.setHorses(horses);
+        race.setRandomSource(RandomSource.seeded(42));
+        race.bringToStart(horses);
+        String [] names = new String[horses.length];
+        for(int i=0; i<horses.length; i++){
+            names[i] = horses[i].getName();
+        }
+        batchStatistics = new RaceStatistics(names);
+        frames = new FramePipeline(new RaceRenderer(trackLength, true, OutputStream.nullOutputStream()), 30, 4);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        frames.finish();
+    }
+
+    @Benchmark
+    public boolean tick()
+    {
+        boolean finished = race.playTick(horses);
+        if(finished){
+            //falls wear confidence down, so every race starts from the same field
+            for(int i=0; i<horses.length; i++){
+                horses[i].setConfidence(startingConfidence[i]);
+            }
+            race.bringToStart(horses);
+        }
+        return finished;
+    }
+
+    @Benchmark
+    public boolean tickAndPublishFrame()
+    {
+        boolean finished = tick();
+        frames.publish(RaceFrame.of(race.getTicks(), horses));
+        return finished;
+    }
+
+    @Benchmark
+    public RaceStatistics fullRace()
+    {
+        return race.runHeadless(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public RaceStatistics headlessBatch()
+    {
+        batchStatistics.reset();
+        race.runHeadless(100, batchStatistics);
+        return batchStatistics;
+    }
+
+    /**
+     * A field with confidence spread evenly from 0.3 to 0.9
+     */
+    static Horse [] field(int fieldSize)
+    {
+        Horse [] horses = new Horse[fieldSize];
+        for(int i=0; i<fieldSize; i++){
+            double confidence = 0.3 + 0.6 * i / Math.max(1, fieldSize - 1);
+            horses[i] = new Horse("Horse " + i, (char)('A' + i), confidence);
+        }
+        return horses;
+    }
+}
@@ -0,0 +1,75 @@
+package part1;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing one frame of a race that is under way, either the whole frame
+ * or only the lanes that changed. Frames are written to a stream that
+ * throws them away, so only building them is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaceRendererBenchmark
+{
+    @Param({"2", "5", "10"})
+    int fieldSize;
+
+    @Param({"10", "50", "100"})
+    int trackLength;
+
+    private RaceFrame midRace;
+    private RaceFrame leaderOneOn;
+    private RaceFrame nextFrame;
+    private RaceRenderer fullRenderer;
+    private RaceRenderer incrementalRenderer;
+
+    @Setup
+    public void setUp()
+    {
+        //a frame from the middle of a race: horses spread out and one down
+        Horse [] horses = RaceBenchmark.field(fieldSize);
+        for(int i=0; i<horses.length; i++){
+            for(int step=0; step < trackLength * (i + 1) / (horses.length + 1); step++){
+                horses[i].moveForward();
+            }
+        }
+        horses[0].fall();
+        midRace = RaceFrame.of(1, horses);
+        horses[horses.length - 1].moveForward();
+        leaderOneOn = RaceFrame.of(2, horses);
+        nextFrame = leaderOneOn;
+
+        fullRenderer = new RaceRenderer(trackLength, false, OutputStream.nullOutputStream());
+        incrementalRenderer = new RaceRenderer(trackLength, true, OutputStream.nullOutputStream());
+        incrementalRenderer.render(midRace);
+    }
+
+    @Benchmark
+    public void fullFrame()
+    {
+        fullRenderer.render(midRace);
+    }
+
+    @Benchmark
+    public void incrementalFrameWithOneLaneChanged()
+    {
+        //the leader steps back and forth by one, so its lane is redrawn every frame
+        incrementalRenderer.render(nextFrame);
+        nextFrame = nextFrame == midRace ? leaderOneOn : midRace;
+    }
+}
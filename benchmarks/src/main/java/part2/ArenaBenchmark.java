@@ -0,0 +1,122 @@
+package part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the competition engine behind the arena: one tick (advanceSteed,
+ * checkAppleConsumption and checkSteedProgress for every steed), the same tick
+ * with a snapshot published for drawing, and a whole competition played
+ * straight through, plus the arena drawing a snapshot onto an offscreen image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ArenaBenchmark {
+    static final int TRACK_WIDTH = 1100;
+    static final int TRACK_HEIGHT = 500;
+
+    @Param({"2", "5", "20", "200"})
+    int fieldSize;
+
+    @Param({"2", "2000"})
+    int applesPerCompetition;
+
+    @Param({"300", "500", "5000"})
+    int trackLength;
+
+    private UpgradedCompetitionArena arena;
+    private CompetitionEngine engine;
+    private BufferedImage frame;
+    private Graphics2D frameGraphics;
+
+    /**
+     * Sets up an arena with a full field and a competition under way.
+     */
+    @Setup
+    public void setUp() {
+        arena = new UpgradedCompetitionArena(new SplittableRandom(42), TRACK_WIDTH, TRACK_HEIGHT);
+        arena.setTrackLength(trackLength);
+        for (UpgradedSteed steed : field(fieldSize)) {
+            arena.addSteed(steed);
+        }
+        engine = arena.getEngine();
+        engine.setApplesPerCompetition(applesPerCompetition);
+        engine.startCompetition();
+        engine.publishSnapshot();
+        frame = new BufferedImage(TRACK_WIDTH, TRACK_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        frameGraphics = frame.createGraphics();
+    }
+
+    /**
+     * Benchmarks one tick, starting a new competition whenever one finishes.
+     *
+     * @return true if the tick finished the competition.
+     */
+    @Benchmark
+    public boolean tick() {
+        boolean finished = engine.playTick();
+        if (finished) {
+            engine.startCompetition();
+        }
+        return finished;
+    }
+
+    /**
+     * Benchmarks one tick followed by publishing a snapshot of it, as the arena does when it is drawing.
+     *
+     * @return the snapshot.
+     */
+    @Benchmark
+    public CompetitionSnapshot tickAndPublishSnapshot() {
+        tick();
+        return engine.publishSnapshot();
+    }
+
+    /**
+     * Benchmarks a whole competition from the start to the finish.
+     *
+     * @return the number of ticks the competition took.
+     */
+    @Benchmark
+    public long fullCompetition() {
+        engine.startCompetition();
+        return engine.runToFinish();
+    }
+
+    /**
+     * Benchmarks drawing the track as it stands onto an offscreen image.
+     */
+    @Benchmark
+    public void renderTrack() {
+        arena.renderTrack(frameGraphics);
+    }
+
+    /**
+     * Creates a field of steeds with every combination of gear in turn.
+     *
+     * @param fieldSize The number of steeds.
+     * @return The steeds in lane order.
+     */
+    static UpgradedSteed[] field(int fieldSize) {
+        List<Set<String>> gearChoices = List.of(Set.of(), Set.of("Armor"), Set.of("Goggles", "Boots"),
+                Set.of("Armor", "Goggles", "Boots"));
+        Color[] colors = {Color.RED, Color.BLUE, Color.GREEN, Color.ORANGE, Color.BLACK};
+        UpgradedSteed[] steeds = new UpgradedSteed[fieldSize];
+        for (int i = 0; i < fieldSize; i++) {
+            steeds[i] = new UpgradedSteed("Steed " + i, "♞", 0.5, colors[i % colors.length],
+                    gearChoices.get(i % gearChoices.size()));
+        }
+        return steeds;
+    }
+}
@@ -0,0 +1,66 @@
+package part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks painting a bar graph of the field onto an offscreen image.
+ * The bars are record times, which grow with the track length. Painting an
+ * unchanged graph only copies its cached image, so a bar is also changed
+ * before each paint to measure drawing the graph itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BarGraphBenchmark {
+    @Param({"2", "5", "20", "100000"})
+    int fieldSize;
+
+    @Param({"300", "500", "5000"})
+    int trackLength;
+
+    private EnhancedBarGraph graph;
+    private Graphics2D imageGraphics;
+    private long updates;
+
+    /**
+     * Sets up a graph the size it is shown at in the statistics panel.
+     */
+    @Setup
+    public void setUp() {
+        graph = new EnhancedBarGraph();
+        graph.setTitle("Record Times");
+        graph.setBarThickness(20);
+        for (int i = 0; i < fieldSize; i++) {
+            graph.setBarData(i, Color.getHSBColor((float) i / fieldSize, 0.8f, 0.9f),
+                    trackLength / (5.0 + i), "Steed " + i);
+        }
+        graph.setSize(300, 200);
+        BufferedImage image = new BufferedImage(graph.getWidth(), graph.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        imageGraphics = image.createGraphics();
+    }
+
+    /**
+     * Benchmarks painting the graph.
+     */
+    @Benchmark
+    public void paintComponent() {
+        graph.paintComponent(imageGraphics);
+    }
+
+    /**
+     * Benchmarks changing one bar and painting the graph again.
+     */
+    @Benchmark
+    public void updateAndPaint() {
+        graph.setBarData(0, Color.RED, trackLength / 5.0 + (updates++ & 1), "Steed 0");
+        graph.paintComponent(imageGraphics);
+    }
+}
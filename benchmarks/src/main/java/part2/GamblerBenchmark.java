@@ -0,0 +1,71 @@
+package part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a gambler staking on a field and settling up.
+ * The track length plays no part in gambling, so the second parameter is
+ * the number of competitions already in the gambler's history instead,
+ * which is what the history lookups grow with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GamblerBenchmark {
+    @Param({"2", "5", "20"})
+    int fieldSize;
+
+    @Param({"10", "1000", "100000"})
+    int competitions;
+
+    private UpgradedSteed[] steeds;
+    private UpgradedGambler gambler;
+    private int nextSteed;
+
+    /**
+     * Sets up a gambler who has already staked on every earlier competition.
+     */
+    @Setup
+    public void setUp() {
+        steeds = ArenaBenchmark.field(fieldSize);
+        SteedRegistry registry = new SteedRegistry();
+        for (UpgradedSteed steed : steeds) {
+            registry.register(steed);
+        }
+        gambler = new UpgradedGambler(Double.MAX_VALUE / 2);
+        for (int i = 0; i < competitions; i++) {
+            gambler.placeStake(steeds[i % fieldSize], 10);
+            gambler.settleStake(steeds[(i / 2) % fieldSize]);
+        }
+    }
+
+    /**
+     * Benchmarks placing a stake and settling it, keeping the history the same size.
+     *
+     * @return the gambler's funds afterwards.
+     */
+    @Benchmark
+    public double placeAndSettleStake() {
+        UpgradedSteed steed = steeds[nextSteed];
+        nextSteed = (nextSteed + 1) % fieldSize;
+        gambler.placeStake(steed, 10);
+        gambler.settleStake(steeds[0]);
+        gambler.removeLastStake(steed.getId());
+        return gambler.getFunds();
+    }
+
+    /**
+     * Benchmarks working out the win percentage from the whole history.
+     *
+     * @return the win percentage.
+     */
+    @Benchmark
+    public double getWinPercentage() {
+        return gambler.getWinPercentage();
+    }
+}
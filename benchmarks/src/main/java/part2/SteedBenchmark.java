@@ -0,0 +1,64 @@
+package part2;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks moving a field of steeds along the track and working out their gear bonuses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteedBenchmark {
+    @Param({"2", "5", "20"})
+    int fieldSize;
+
+    @Param({"300", "500", "5000"})
+    int trackLength;
+
+    private UpgradedSteed[] steeds;
+
+    /**
+     * Sets up the field.
+     */
+    @Setup
+    public void setUp() {
+        steeds = ArenaBenchmark.field(fieldSize);
+    }
+
+    /**
+     * Benchmarks every steed galloping once, sending steeds that reach the end back to the start.
+     *
+     * @return the total progress of the field.
+     */
+    @Benchmark
+    public int gallop() {
+        int totalProgress = 0;
+        for (UpgradedSteed steed : steeds) {
+            steed.gallop();
+            if (steed.getTrackProgress() >= trackLength) {
+                steed.resetForNewCompetition();
+            }
+            totalProgress += steed.getTrackProgress();
+        }
+        return totalProgress;
+    }
+
+    /**
+     * Benchmarks working out the gear bonus of every steed.
+     *
+     * @return the total gear bonus of the field.
+     */
+    @Benchmark
+    public double computeGearBonus() {
+        double totalBonus = 0;
+        for (UpgradedSteed steed : steeds) {
+            totalBonus += steed.computeGearBonus();
+        }
+        return totalBonus;
+    }
+}
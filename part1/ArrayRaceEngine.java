@@ -0,0 +1,237 @@
+package part1;
+import java.util.Arrays;
+
+/**
+ * Runs races with the same move and fall rules as Race.moveHorse,
+ * but keeps the field as parallel primitive arrays instead of Horse objects.
+ * The horses are copied in when the engine is loaded and can be copied back
+ * out after a race, so ticking a race never touches the heap.
+ * Each engine draws from its own RandomSource rather than the shared
+ * Math.random(), so engines on different threads never contend.
+ */
+public final class ArrayRaceEngine
+{
+    private int raceLength;
+    private String [] names;
+    private char [] symbols;
+    private double [] startingConfidence;
+
+    //state of the race being run, one slot per lane
+    private int [] distance;
+    private double [] confidence;
+    private double [] fallChance;
+    private long [] fallen;
+    private int ticks;
+    private RandomSource random;
+    private long nextRace;
+
+    /**
+     * Constructor for objects of class ArrayRaceEngine
+     *
+     * @param distance the length of the race
+     * @param horses the field, one horse per lane
+     */
+    public ArrayRaceEngine(int distance, Horse [] horses)
+    {
+        this(distance, horses, RandomSource.unseeded());
+    }
+
+    /**
+     * Constructor for objects of class ArrayRaceEngine
+     *
+     * @param distance the length of the race
+     * @param horses the field, one horse per lane
+     * @param random the source every move and fall is decided with
+     */
+    public ArrayRaceEngine(int distance, Horse [] horses, RandomSource random)
+    {
+        this.raceLength = distance;
+        this.random = random;
+        load(horses);
+    }
+
+    /**
+     * Copy a field of horses into the engine, replacing the previous one
+     * Each horse's current confidence becomes the confidence it starts every race with.
+     */
+    public void load(Horse [] horses)
+    {
+        int lanes = horses.length;
+        names = new String[lanes];
+        symbols = new char[lanes];
+        startingConfidence = new double[lanes];
+        distance = new int[lanes];
+        confidence = new double[lanes];
+        fallChance = new double[lanes];
+        fallen = new long[(lanes + 63) >>> 6];
+
+        for(int i=0; i<lanes; i++){
+            names[i] = horses[i].getName();
+            symbols[i] = horses[i].getSymbol();
+            startingConfidence[i] = horses[i].getConfidence();
+        }
+        reset();
+    }
+
+    /**
+     * Bring every horse back to the start, standing and with its starting confidence
+     */
+    public void reset()
+    {
+        for(int i=0; i<distance.length; i++){
+            distance[i] = 0;
+            confidence[i] = startingConfidence[i];
+            fallChance[i] = 0.1*confidence[i]*confidence[i];
+        }
+        Arrays.fill(fallen, 0L);
+        ticks = 0;
+    }
+
+    /**
+     * Run the next race to the finish from the start
+     *
+     * @return the lane of the winner, or -1 if there was no winner
+     */
+    public int runRace()
+    {
+        return runRace(nextRace);
+    }
+
+    /**
+     * Run the race with the given number to the finish from the start
+     * As in Race.startRace, if several horses finish on the same tick
+     * the one in the highest lane is the winner. A race where every horse
+     * still standing has no confidence can never finish and has no winner.
+     *
+     * @return the lane of the winner, or -1 if there was no winner
+     */
+    public int runRace(long race)
+    {
+        reset();
+        random.startRace(race);
+        nextRace = race + 1;
+        int lanes = distance.length;
+        int standing = lanes;
+        int movable = 0;
+        for(int i=0; i<lanes; i++){
+            if(confidence[i] > 0){
+                movable++;
+            }
+        }
+
+        int winner = -1;
+        do
+        {
+            ticks++;
+            for(int i=0; i<lanes; i++){
+                long bit = 1L << i;
+                if((fallen[i >>> 6] & bit) == 0){
+                    double c = confidence[i];
+                    if(random.nextDouble(i) < c){
+                        distance[i]++;
+                    }
+                    if(random.nextDouble(i) < fallChance[i]){
+                        fallen[i >>> 6] |= bit;
+                        confidence[i] = Math.max(0.0, c - 0.1);
+                        standing--;
+                        movable--;
+                    }
+                }
+                if(distance[i] == raceLength){
+                    winner = i;
+                }
+            }
+        }
+        while (winner < 0 && standing > 0 && movable > 0);
+        return winner;
+    }
+
+    /**
+     * Run a number of races back to back and aggregate the results
+     */
+    public RaceStatistics runRaces(long numberOfRaces)
+    {
+        return runRaces(nextRace, numberOfRaces);
+    }
+
+    /**
+     * Run a numbered block of races and aggregate the results
+     *
+     * @param firstRace the number of the first race in the block
+     * @param numberOfRaces how many races to run
+     */
+    public RaceStatistics runRaces(long firstRace, long numberOfRaces)
+    {
+        RaceStatistics statistics = new RaceStatistics(names);
+        for(long race=firstRace; race<firstRace+numberOfRaces; race++){
+            int winner = runRace(race);
+            for(int i=0; i<distance.length; i++){
+                if(hasFallen(i)){
+                    statistics.recordFall(i);
+                }
+            }
+            statistics.recordRace(winner, ticks);
+        }
+        return statistics;
+    }
+
+    public int getDistanceTravelled(int lane)
+    {
+        return distance[lane];
+    }
+
+    public double getConfidence(int lane)
+    {
+        return confidence[lane];
+    }
+
+    public boolean hasFallen(int lane)
+    {
+        return (fallen[lane >>> 6] & (1L << lane)) != 0;
+    }
+
+    /**
+     * @return the number of ticks the last race took
+     */
+    public int getTicks()
+    {
+        return ticks;
+    }
+
+    public int getNumberOfLanes()
+    {
+        return distance.length;
+    }
+
+    /**
+     * Copy the state of the last race back onto the given horses
+     * The horses must be in the same lane order they were loaded in.
+     */
+    public void writeBack(Horse [] horses)
+    {
+        for(int i=0; i<horses.length; i++){
+            Horse horse = horses[i];
+            horse.goBackToStart();
+            for(int step=0; step<distance[i]; step++){
+                horse.moveForward();
+            }
+            if(hasFallen(i)){
+                horse.fall();
+            }
+            horse.setConfidence(confidence[i]);
+        }
+    }
+
+    /**
+     * @return new horses carrying the state of the last race
+     */
+    public Horse [] toHorses()
+    {
+        Horse [] horses = new Horse[distance.length];
+        for(int i=0; i<horses.length; i++){
+            horses[i] = new Horse(names[i], symbols[i], startingConfidence[i]);
+        }
+        writeBack(horses);
+        return horses;
+    }
+}
@@ -0,0 +1,305 @@
+package part1;
+
+/**
+ * Runs races by jumping from event to event instead of stepping every horse every tick.
+ *
+ * Each tick a standing horse with confidence c moves with probability c and,
+ * independently, falls with probability 0.1*c*c, exactly as in Race.moveHorse.
+ * Something happens to it on a tick with probability q = 1-(1-c)(1-0.1*c*c),
+ * so the ticks until its next event are geometric and can be drawn directly.
+ * Which event it was (a move, a fall, or both) is then drawn given that
+ * something happened. The horses' next events are kept in a priority queue
+ * ordered by tick, and ticks where nothing happens are never visited,
+ * which pays off for slow horses and long races.
+ *
+ * The result of a race has the same distribution as Race.startRace, though a
+ * given seed produces different races from Race and ArrayRaceEngine.
+ */
+public final class EventRaceEngine
+{
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private int raceLength;
+    private String [] names;
+    private double [] startingConfidence;
+    private RandomSource random;
+    private long nextRace;
+
+    //per lane chances, worked out once from the starting confidence
+    private double [] eventChance;
+    private double [] logNoEventChance;
+    private double [] moveLimit;
+    private double [] fallLimit;
+
+    //state of the race being run
+    private int [] distance;
+    private boolean [] fallen;
+    private double [] confidence;
+    private long [] nextEvent;
+    private int [] queue;
+    private int queued;
+    private long ticks;
+
+    /**
+     * Constructor for objects of class EventRaceEngine
+     *
+     * @param distance the length of the race
+     * @param horses the field, one horse per lane
+     */
+    public EventRaceEngine(int distance, Horse [] horses)
+    {
+        this(distance, horses, RandomSource.unseeded());
+    }
+
+    /**
+     * Constructor for objects of class EventRaceEngine
+     *
+     * @param distance the length of the race
+     * @param horses the field, one horse per lane
+     * @param random the source every event is drawn from
+     */
+    public EventRaceEngine(int distance, Horse [] horses, RandomSource random)
+    {
+        this.raceLength = distance;
+        this.random = random;
+
+        int lanes = horses.length;
+        names = new String[lanes];
+        startingConfidence = new double[lanes];
+        eventChance = new double[lanes];
+        logNoEventChance = new double[lanes];
+        moveLimit = new double[lanes];
+        fallLimit = new double[lanes];
+        this.distance = new int[lanes];
+        fallen = new boolean[lanes];
+        confidence = new double[lanes];
+        nextEvent = new long[lanes];
+        queue = new int[lanes];
+
+        for(int i=0; i<lanes; i++){
+            double c = horses[i].getConfidence();
+            double fallChance = 0.1*c*c;
+            names[i] = horses[i].getName();
+            startingConfidence[i] = c;
+            eventChance[i] = 1 - (1 - c)*(1 - fallChance);
+            logNoEventChance[i] = Math.log1p(-eventChance[i]);
+            moveLimit[i] = c;
+            fallLimit[i] = c*(1 - fallChance);
+        }
+    }
+
+    /**
+     * Run the next race to the finish from the start
+     *
+     * @return the lane of the winner, or -1 if there was no winner
+     */
+    public int runRace()
+    {
+        return runRace(nextRace);
+    }
+
+    /**
+     * Run the race with the given number to the finish from the start
+     * If several horses finish on the same tick the one in the highest lane
+     * wins, as in Race.startRace. A race where every horse still standing
+     * has no confidence can never finish and has no winner.
+     *
+     * @return the lane of the winner, or -1 if there was no winner
+     */
+    public int runRace(long race)
+    {
+        random.startRace(race);
+        nextRace = race + 1;
+
+        int lanes = distance.length;
+        queued = 0;
+        ticks = 0;
+        for(int i=0; i<lanes; i++){
+            distance[i] = 0;
+            fallen[i] = false;
+            confidence[i] = startingConfidence[i];
+            nextEvent[i] = ticksUntilEvent(i);
+            if(nextEvent[i] != NEVER){
+                push(i);
+            }
+        }
+        int standing = lanes;
+
+        if(queued == 0 || nextEvent[queue[0]] > 1){
+            //nothing happens on the first tick, so a race of length 0 is won straight away
+            if(raceLength == 0 && lanes > 0){
+                ticks = 1;
+                return lanes - 1;
+            }
+            if(queued == 0){
+                ticks = 1;
+                return -1;
+            }
+        }
+
+        while (queued > 0)
+        {
+            long tick = nextEvent[queue[0]];
+            ticks = tick;
+            int winner = -1;
+
+            //everything that happens on this tick happens before anyone can win
+            while (queued > 0 && nextEvent[queue[0]] == tick)
+            {
+                int lane = pop();
+                double outcome = random.nextDouble(lane) * eventChance[lane];
+                if(outcome < moveLimit[lane]){
+                    distance[lane]++;
+                    if(distance[lane] == raceLength && lane > winner){
+                        winner = lane;
+                    }
+                }
+                if(outcome >= fallLimit[lane]){
+                    fallen[lane] = true;
+                    confidence[lane] = Math.max(0.0, confidence[lane] - 0.1);
+                    standing--;
+                }
+                else{
+                    long gap = ticksUntilEvent(lane);
+                    if(gap != NEVER){
+                        nextEvent[lane] = tick + gap;
+                        push(lane);
+                    }
+                }
+            }
+
+            //a race of length 0 is won on the first tick by the highest lane that didn't move
+            if(raceLength == 0 && tick == 1){
+                winner = highestLaneAtStart();
+            }
+
+            if(winner >= 0){
+                return winner;
+            }
+            if(standing == 0){
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Run a number of races back to back and aggregate the results
+     */
+    public RaceStatistics runRaces(long numberOfRaces)
+    {
+        return runRaces(nextRace, numberOfRaces);
+    }
+
+    /**
+     * Run a numbered block of races and aggregate the results
+     *
+     * @param firstRace the number of the first race in the block
+     * @param numberOfRaces how many races to run
+     */
+    public RaceStatistics runRaces(long firstRace, long numberOfRaces)
+    {
+        RaceStatistics statistics = new RaceStatistics(names);
+        for(long race=firstRace; race<firstRace+numberOfRaces; race++){
+            int winner = runRace(race);
+            for(int i=0; i<distance.length; i++){
+                if(fallen[i]){
+                    statistics.recordFall(i);
+                }
+            }
+            statistics.recordRace(winner, (int) Math.min(ticks, Integer.MAX_VALUE));
+        }
+        return statistics;
+    }
+
+    public int getDistanceTravelled(int lane)
+    {
+        return distance[lane];
+    }
+
+    public double getConfidence(int lane)
+    {
+        return confidence[lane];
+    }
+
+    public boolean hasFallen(int lane)
+    {
+        return fallen[lane];
+    }
+
+    /**
+     * @return the number of ticks the last race took
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    //the number of ticks from now until something next happens to a horse, drawn from a geometric distribution
+    private long ticksUntilEvent(int lane)
+    {
+        double q = eventChance[lane];
+        if(q >= 1.0){
+            return 1;
+        }
+        if(q <= 0.0){
+            return NEVER;
+        }
+        double u = 1.0 - random.nextDouble(lane);
+        double gap = Math.floor(Math.log(u) / logNoEventChance[lane]);
+        return gap >= NEVER / 2 ? NEVER : 1 + (long) gap;
+    }
+
+    //in a race of length 0, the highest lane whose horse did not move on the first tick
+    private int highestLaneAtStart()
+    {
+        for(int i=distance.length-1; i>=0; i--){
+            if(distance[i] == 0){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //binary heap of lanes ordered by the tick of their next event
+    private void push(int lane)
+    {
+        int child = queued++;
+        while (child > 0)
+        {
+            int parent = (child - 1) >>> 1;
+            if(nextEvent[queue[parent]] <= nextEvent[lane]){
+                break;
+            }
+            queue[child] = queue[parent];
+            child = parent;
+        }
+        queue[child] = lane;
+    }
+
+    private int pop()
+    {
+        int top = queue[0];
+        int last = queue[--queued];
+        int parent = 0;
+        while (true)
+        {
+            int child = 2*parent + 1;
+            if(child >= queued){
+                break;
+            }
+            if(child + 1 < queued && nextEvent[queue[child + 1]] < nextEvent[queue[child]]){
+                child++;
+            }
+            if(nextEvent[last] <= nextEvent[queue[child]]){
+                break;
+            }
+            queue[parent] = queue[child];
+            parent = child;
+        }
+        if(queued > 0){
+            queue[parent] = last;
+        }
+        return top;
+    }
+}
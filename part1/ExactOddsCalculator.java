@@ -0,0 +1,212 @@
+package part1;
+import java.util.List;
+
+/**
+ * Works out each horse's exact chance of winning a race, without simulating it.
+ *
+ * Under Race.moveHorse every horse runs independently of the others. Each tick
+ * it moves with probability c and falls with probability p = 0.1*c*c, so the
+ * chance that it reaches the finish on tick t, having not fallen on an earlier
+ * tick, is negative binomial:
+ *     P(T = t) = C(t-1, L-1) (c(1-p))^(L-1) ((1-c)(1-p))^(t-L) c
+ * A horse wins on tick t if it finishes then, no horse finished earlier,
+ * and no horse in a higher lane finishes on the same tick, because
+ * startRace keeps the last winner it sees. Summing that over t gives the
+ * win probabilities. The sum is cut off once a geometric bound on what is
+ * left is negligible; getTruncationError() reports that bound.
+ */
+public class ExactOddsCalculator
+{
+    //stop summing once the probability left over is below this
+    private static final double TOLERANCE = 1e-15;
+    //never look further ahead than this many ticks
+    private static final long MAX_TICKS = 100_000_000L;
+
+    private String [] names;
+    private double [] winProbability;
+    private double allFallenProbability;
+    private double truncationError;
+
+    /**
+     * Constructor for objects of class ExactOddsCalculator
+     * The odds are calculated straight away from each horse's current confidence.
+     *
+     * @param raceLength the length of the race
+     * @param field the horses in lane order
+     */
+    public ExactOddsCalculator(int raceLength, List<Horse> field)
+    {
+        int lanes = field.size();
+        names = new String[lanes];
+        double [] confidence = new double[lanes];
+        for(int i=0; i<lanes; i++){
+            names[i] = field.get(i).getName();
+            confidence[i] = field.get(i).getConfidence();
+        }
+        winProbability = new double[lanes];
+
+        if(raceLength == 0){
+            calculateStandingStart(confidence);
+        }
+        else if(raceLength > 0){
+            calculate(raceLength, confidence);
+        }
+
+        //everyone falls without finishing; impossible while a horse with no confidence stays up
+        allFallenProbability = 1.0;
+        for(int i=0; i<lanes; i++){
+            if(confidence[i] <= 0){
+                allFallenProbability = 0.0;
+            }
+            else{
+                allFallenProbability *= 1.0 - finishProbability(raceLength, confidence[i]);
+            }
+        }
+    }
+
+    public int getNumberOfLanes()
+    {
+        return names.length;
+    }
+
+    public String getHorseName(int lane)
+    {
+        return names[lane];
+    }
+
+    public double getWinProbability(int lane)
+    {
+        return winProbability[lane];
+    }
+
+    /**
+     * @return the chance that every horse falls before any of them finishes
+     */
+    public double getAllFallenProbability()
+    {
+        return allFallenProbability;
+    }
+
+    /**
+     * @return the chance that nobody wins, either because every horse fell or
+     *         because the horses left standing have no confidence and never finish
+     */
+    public double getNoWinnerProbability()
+    {
+        double won = 0.0;
+        for(double p : winProbability){
+            won += p;
+        }
+        return Math.max(0.0, 1.0 - won);
+    }
+
+    /**
+     * @return an upper bound on the win probability left out by stopping the sum
+     */
+    public double getTruncationError()
+    {
+        return truncationError;
+    }
+
+    /**
+     * The chance that a horse reaches the finish at all. Every move but the last
+     * must come before a fall; the last may come on the same tick as one.
+     */
+    private static double finishProbability(int raceLength, double c)
+    {
+        if(raceLength < 0){
+            return 0.0;
+        }
+        if(raceLength == 0){
+            return 1.0 - c;
+        }
+        double p = 0.1*c*c;
+        double eventChance = 1 - (1 - c)*(1 - p);
+        if(eventChance <= 0){
+            return 0.0;
+        }
+        return Math.pow(c*(1 - p)/eventChance, raceLength - 1) * c/eventChance;
+    }
+
+    //a race of length 0 is decided on the first tick by the highest lane that doesn't move
+    private void calculateStandingStart(double [] confidence)
+    {
+        double noLaterWinner = 1.0;
+        for(int i=confidence.length-1; i>=0; i--){
+            winProbability[i] = (1 - confidence[i]) * noLaterWinner;
+            noLaterWinner *= confidence[i];
+        }
+    }
+
+    private void calculate(int raceLength, double [] confidence)
+    {
+        int lanes = confidence.length;
+        double [] logFinish = new double[lanes];     //log P(T = t)
+        double [] logStay = new double[lanes];       //log of (1-c)(1-p)
+        double [] notYet = new double[lanes];        //P(T >= t)
+        double [] finish = new double[lanes];        //P(T = t)
+        double [] laterLanes = new double[lanes + 1];
+
+        for(int i=0; i<lanes; i++){
+            double c = confidence[i];
+            double p = 0.1*c*c;
+            //a horse with no confidence never finishes; 0*log(0) would make the whole sum NaN over a length of 1
+            logFinish[i] = c <= 0 ? Double.NEGATIVE_INFINITY : (raceLength - 1) * Math.log(c*(1 - p)) + Math.log(c);
+            logStay[i] = Math.log((1 - c)*(1 - p));
+            notYet[i] = 1.0;
+        }
+
+        //nobody can finish before tick raceLength
+        for(long t=raceLength; t<raceLength+MAX_TICKS; t++){
+            for(int i=0; i<lanes; i++){
+                finish[i] = Math.exp(logFinish[i]);
+            }
+
+            //horses in higher lanes must not finish on this tick, lower lanes not before it
+            laterLanes[lanes] = 1.0;
+            for(int i=lanes-1; i>=0; i--){
+                laterLanes[i] = laterLanes[i + 1] * Math.max(0.0, notYet[i] - finish[i]);
+            }
+            double earlierLanes = 1.0;
+            for(int i=0; i<lanes; i++){
+                winProbability[i] += finish[i] * earlierLanes * laterLanes[i + 1];
+                earlierLanes *= notYet[i];
+            }
+
+            double leftOver = 0.0;
+            boolean bounded = true;
+            for(int i=0; i<lanes; i++){
+                notYet[i] = Math.max(0.0, notYet[i] - finish[i]);
+                //log of P(T = t+1) / P(T = t)
+                double logRatio = Math.log(t) - Math.log(t - raceLength + 1) + logStay[i];
+                logFinish[i] += logRatio;
+
+                //once past its most likely finishing tick a horse's chances shrink at least geometrically
+                if(confidence[i] > 0){
+                    double ratio = Math.exp(logRatio);
+                    if(ratio < 1){
+                        leftOver += finish[i] * ratio / (1 - ratio);
+                    }
+                    else{
+                        bounded = false;
+                    }
+                }
+            }
+            truncationError = leftOver;
+            if(bounded && leftOver < TOLERANCE){
+                return;
+            }
+        }
+    }
+
+    public String toString()
+    {
+        StringBuilder summary = new StringBuilder();
+        for(int lane=0; lane<names.length; lane++){
+            summary.append(String.format("%s: %.6f%n", names[lane], winProbability[lane]));
+        }
+        summary.append(String.format("All fallen: %.6f%n", allFallenProbability));
+        summary.append(String.format("No winner: %.6f", getNoWinnerProbability()));
+        return summary.toString();
+    }
+}
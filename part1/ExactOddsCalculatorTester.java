@@ -0,0 +1,60 @@
+package part1;
+import java.util.List;
+
+public class ExactOddsCalculatorTester {
+
+    public static void main(String[] args) {
+        ExactOddsCalculatorTester tester = new ExactOddsCalculatorTester();
+        tester.testAgainstSimulation(100);
+        tester.testAgainstSimulation(5);
+        tester.testStandingStart();
+        tester.testHorseWithNoConfidence();
+        System.out.println("All tests passed.");
+    }
+
+    public void testAgainstSimulation(int raceLength) {
+        List<Horse> field = List.of(new Horse("Thunder", 'T', 0.9), new Horse("Storm", 'S', 0.4),
+                                    new Horse("Breeze", 'B', 0.1), new Horse("Gale", 'G', 0.1));
+        ExactOddsCalculator exact = new ExactOddsCalculator(raceLength, field);
+        WinProbabilityEstimate simulated = WinProbabilityEstimator.estimate(field, raceLength, 400_000, 1);
+
+        // Every exact probability should sit inside the simulation's confidence interval (widened a little)
+        for (int lane = 0; lane < field.size(); lane++) {
+            double p = exact.getWinProbability(lane);
+            assert p >= simulated.getWinLowerBound(lane) - 0.002 && p <= simulated.getWinUpperBound(lane) + 0.002
+                : "Win probability of lane " + lane + " does not match the simulation";
+        }
+        assert Math.abs(exact.getNoWinnerProbability() - simulated.getNoWinnerProbability()) < 0.005
+            : "No-winner probability does not match the simulation";
+
+        // Horses in the same race with the same confidence: the higher lane wins ties
+        assert exact.getWinProbability(3) > exact.getWinProbability(2) : "Ties should go to the higher lane";
+        assert exact.getTruncationError() < 1e-12 : "Sum should be cut off only when negligible";
+    }
+
+    public void testStandingStart() {
+        // In a race of length 0 the highest lane that does not move on the first tick wins
+        List<Horse> field = List.of(new Horse("Thunder", 'T', 0.5), new Horse("Storm", 'S', 0.5));
+        ExactOddsCalculator exact = new ExactOddsCalculator(0, field);
+        assert Math.abs(exact.getWinProbability(1) - 0.5) < 1e-12 : "Lane 1 wins if it stays put";
+        assert Math.abs(exact.getWinProbability(0) - 0.25) < 1e-12 : "Lane 0 wins only if lane 1 moves";
+        assert Math.abs(exact.getAllFallenProbability() - 0.25) < 1e-12 : "Both moving leaves only falls";
+    }
+
+    public void testHorseWithNoConfidence() {
+        // A horse with no confidence never moves and never falls, so the field can never all fall
+        List<Horse> field = List.of(new Horse("Thunder", 'T', 0.0), new Horse("Storm", 'S', 0.5));
+        ExactOddsCalculator exact = new ExactOddsCalculator(10, field);
+        assert exact.getWinProbability(0) == 0.0 : "A horse with no confidence cannot win";
+        assert exact.getAllFallenProbability() == 0.0 : "A horse with no confidence cannot fall";
+
+        // Over a length of 1 the same field must still give numbers, not NaN
+        exact = new ExactOddsCalculator(1, field);
+        assert exact.getWinProbability(0) == 0.0 : "A horse with no confidence cannot win a race of length 1";
+        // Storm finishes on the first tick it moves, even if it falls on that tick too
+        assert Math.abs(exact.getWinProbability(1) - 0.5 / 0.5125) < 1e-12
+            : "Storm wins a race of length 1 unless it falls before its first move";
+        assert Math.abs(exact.getNoWinnerProbability() - 0.0125 / 0.5125) < 1e-12
+            : "A race of length 1 stalls only if Storm falls first";
+    }
+}
@@ -0,0 +1,160 @@
+package part1;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carries frames from a race to the terminal on a thread of its own, so a
+ * slow terminal never holds the race up.
+ *
+ * The race publishes a frame after every tick into a small bounded buffer and
+ * carries straight on. The drawing thread wakes up at the target frame rate,
+ * takes whatever is waiting and draws only the newest frame. If the buffer
+ * fills because the terminal has fallen behind, the oldest frame is thrown
+ * away to make room, so publishing never blocks. The last frame published
+ * before the pipeline is finished is always drawn.
+ */
+public class FramePipeline
+{
+    //put in the buffer by finish() to tell the drawing thread to finish
+    private static final RaceFrame END = RaceFrame.of(-1, new Horse[0]);
+
+    private BlockingQueue<RaceFrame> frames;
+    private RaceRenderer renderer;
+    private long frameNanos;
+    private Thread drawingThread;
+
+    private AtomicLong published = new AtomicLong();
+    private AtomicLong dropped = new AtomicLong();
+    private AtomicLong drawn = new AtomicLong();
+
+    /**
+     * Constructor for objects of class FramePipeline
+     * The drawing thread starts straight away.
+     *
+     * @param renderer what the frames are drawn with; only the drawing thread uses it
+     * @param framesPerSecond the most frames drawn each second
+     * @param bufferedFrames how many frames can wait to be drawn before the oldest is dropped
+     */
+    public FramePipeline(RaceRenderer renderer, int framesPerSecond, int bufferedFrames)
+    {
+        if(framesPerSecond < 1 || bufferedFrames < 1){
+            throw new IllegalArgumentException("A pipeline needs a frame rate and room for at least one frame");
+        }
+        this.renderer = renderer;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        this.frames = new ArrayBlockingQueue<>(bufferedFrames);
+
+        drawingThread = new Thread(this::drawFrames, "race frame pipeline");
+        drawingThread.setDaemon(true);
+        drawingThread.start();
+    }
+
+    /**
+     * Hand a frame over to be drawn without waiting for it to be drawn
+     * If the buffer is full the oldest waiting frame is dropped.
+     *
+     * @param frame the race as it stood at the end of a tick
+     */
+    public void publish(RaceFrame frame)
+    {
+        published.incrementAndGet();
+        while (!frames.offer(frame))
+        {
+            if(frames.poll() != null){
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Wait for the last frame published to be drawn, then stop the drawing thread
+     * If the wait is interrupted the drawing thread is abandoned rather than left running.
+     */
+    public void finish() throws InterruptedException
+    {
+        if(drawingThread.isAlive()){
+            try{
+                //waits for room rather than dropping, so the last frame is not lost
+                frames.put(END);
+                drawingThread.join();
+            }catch(InterruptedException e){
+                drawingThread.interrupt();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return how many frames have been published
+     */
+    public long getPublishedFrames()
+    {
+        return published.get();
+    }
+
+    /**
+     * @return how many frames were skipped because a newer one was ready to draw
+     */
+    public long getDroppedFrames()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * @return how many frames have been drawn
+     */
+    public long getDrawnFrames()
+    {
+        return drawn.get();
+    }
+
+    //runs on the drawing thread until END arrives
+    private void drawFrames()
+    {
+        long nextFrameAt = System.nanoTime();
+        try{
+            while (true)
+            {
+                RaceFrame frame = frames.take();
+                boolean finished = frame == END;
+
+                //only the newest frame waiting is worth drawing
+                RaceFrame newer;
+                while (!finished && (newer = frames.poll()) != null)
+                {
+                    if(newer == END){
+                        finished = true;
+                    }
+                    else{
+                        dropped.incrementAndGet();
+                        frame = newer;
+                    }
+                }
+
+                if(frame != END){
+                    renderer.render(frame);
+                    drawn.incrementAndGet();
+                }
+                if(finished){
+                    return;
+                }
+
+                //wait for the next frame slot, without trying to catch up on missed ones
+                nextFrameAt = Math.max(nextFrameAt + frameNanos, System.nanoTime());
+                long wait;
+                while ((wait = nextFrameAt - System.nanoTime()) > 0)
+                {
+                    LockSupport.parkNanos(wait);
+                    if(Thread.currentThread().isInterrupted()){
+                        return;
+                    }
+                }
+            }
+        }catch(InterruptedException e){
+            //the pipeline has been abandoned
+        }
+    }
+}
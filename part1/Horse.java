@@ -56,6 +56,7 @@ public class Horse
     public void goBackToStart()
     {
         this.distanceTravelled=0;
+        this.fallen=false;
     }
     
     public boolean hasFallen()
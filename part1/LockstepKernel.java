@@ -0,0 +1,37 @@
+package part1;
+
+/**
+ * Plays one tick of one lane across a whole block of races for a
+ * LockstepRaceEngine. Each array holds one slot per race in the block.
+ *
+ * For every running race the horse in the lane draws two numbers from its
+ * SplitMix64 stream, as SeededRandomSource would: the first decides whether it
+ * moves and the second whether it falls, just as in Race.moveHorse. A fallen
+ * horse draws nothing. A horse standing on the finish becomes the race's winner,
+ * so when the lanes are played in order the highest lane wins ties.
+ */
+public interface LockstepKernel
+{
+    /**
+     * @param lane the lane being played
+     * @param raceLength the length of the races
+     * @param slots how many races are in the block
+     * @param randomState the SplitMix64 state of the lane's stream in each race
+     * @param distance how far the lane's horse has gone in each race
+     * @param confidence the horse's confidence in each race
+     * @param fallChance the chance of the horse falling on a tick in each race
+     * @param fallen whether the horse has fallen in each race
+     * @param running whether each race is still being run
+     * @param standing how many horses are still standing in each race
+     * @param movable how many horses are still standing with some confidence in each race
+     * @param winner the lane of the winner of each race so far, or -1
+     */
+    void playLane(int lane, int raceLength, int slots, long [] randomState, long [] distance,
+                  double [] confidence, double [] fallChance, boolean [] fallen,
+                  boolean [] running, long [] standing, long [] movable, long [] winner);
+
+    /**
+     * @return a short name for the kernel, e.g. for benchmark reports
+     */
+    String getName();
+}
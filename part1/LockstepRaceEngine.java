@@ -0,0 +1,214 @@
+package part1;
+import java.util.SplittableRandom;
+
+/**
+ * Runs a block of independent races with the same field side by side, one tick
+ * at a time across all of them. For each lane the horses of every race in the
+ * block sit next to each other in primitive arrays, so a tick of a lane is a
+ * straight pass over those arrays that the Vector API can do several races at
+ * a time. When a race finishes its slot is given the next race straight away.
+ *
+ * Race number n with seed s is decided by exactly the numbers that
+ * ArrayRaceEngine with RandomSource.seeded(s) uses for it, so both engines
+ * give the same results race for race; only the order the races finish in differs.
+ *
+ * The vector kernel is used when the jdk.incubator.vector module is available
+ * (see part1.vector.VectorLockstepKernel), otherwise the scalar one.
+ */
+public final class LockstepRaceEngine
+{
+    //races run side by side; a multiple of every vector length in use
+    public static final int DEFAULT_SLOTS = 256;
+
+    private static final LockstepKernel BEST_KERNEL = loadBestKernel();
+
+    private int raceLength;
+    private String [] names;
+    private double [] startingConfidence;
+    private long seed;
+    private LockstepKernel kernel;
+    private int slots;
+    private int movableAtStart;
+
+    //one array per lane, one slot per race in the block
+    private long [][] randomState;
+    private long [][] distance;
+    private double [][] confidence;
+    private double [][] fallChance;
+    private boolean [][] fallen;
+
+    //one slot per race in the block
+    private boolean [] running;
+    private long [] standing;
+    private long [] movable;
+    private long [] winner;
+    private int [] ticks;
+
+    /**
+     * Constructor for objects of class LockstepRaceEngine
+     * Races are decided with an unknown seed.
+     *
+     * @param distance the length of the races
+     * @param horses the field, one horse per lane
+     */
+    public LockstepRaceEngine(int distance, Horse [] horses)
+    {
+        this(distance, horses, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor for objects of class LockstepRaceEngine
+     *
+     * @param distance the length of the races
+     * @param horses the field, one horse per lane; their current confidence is what every race starts with
+     * @param seed the seed every race's random numbers are derived from
+     */
+    public LockstepRaceEngine(int distance, Horse [] horses, long seed)
+    {
+        this(distance, horses, seed, BEST_KERNEL, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Constructor for objects of class LockstepRaceEngine
+     *
+     * @param distance the length of the races
+     * @param horses the field, one horse per lane; their current confidence is what every race starts with
+     * @param seed the seed every race's random numbers are derived from
+     * @param kernel what plays each tick
+     * @param slots how many races are run side by side
+     */
+    public LockstepRaceEngine(int distance, Horse [] horses, long seed, LockstepKernel kernel, int slots)
+    {
+        if(slots < 1){
+            throw new IllegalArgumentException("At least one race must be run at a time");
+        }
+        this.raceLength = distance;
+        this.seed = seed;
+        this.kernel = kernel;
+        this.slots = slots;
+
+        int lanes = horses.length;
+        names = new String[lanes];
+        startingConfidence = new double[lanes];
+        for(int lane=0; lane<lanes; lane++){
+            names[lane] = horses[lane].getName();
+            startingConfidence[lane] = horses[lane].getConfidence();
+            if(startingConfidence[lane] > 0){
+                movableAtStart++;
+            }
+        }
+
+        randomState = new long[lanes][slots];
+        this.distance = new long[lanes][slots];
+        confidence = new double[lanes][slots];
+        fallChance = new double[lanes][slots];
+        fallen = new boolean[lanes][slots];
+        running = new boolean[slots];
+        standing = new long[slots];
+        movable = new long[slots];
+        winner = new long[slots];
+        ticks = new int[slots];
+    }
+
+    /**
+     * @return the vector kernel if the Vector API is available, otherwise the scalar one
+     */
+    public static LockstepKernel bestKernel()
+    {
+        return BEST_KERNEL;
+    }
+
+    public LockstepKernel getKernel()
+    {
+        return kernel;
+    }
+
+    /**
+     * Run a numbered block of races and aggregate the results
+     *
+     * @param firstRace the number of the first race
+     * @param numberOfRaces how many races to run
+     */
+    public RaceStatistics runRaces(long firstRace, long numberOfRaces)
+    {
+        RaceStatistics statistics = new RaceStatistics(names);
+        long nextRace = firstRace;
+        long lastRace = firstRace + numberOfRaces;
+        int inProgress = 0;
+        for(int slot=0; slot<slots; slot++){
+            if(nextRace < lastRace){
+                startRace(slot, nextRace++);
+                inProgress++;
+            }
+            else{
+                running[slot] = false;
+            }
+        }
+
+        int lanes = names.length;
+        while (inProgress > 0)
+        {
+            for(int lane=0; lane<lanes; lane++){
+                kernel.playLane(lane, raceLength, slots, randomState[lane], distance[lane], confidence[lane],
+                                fallChance[lane], fallen[lane], running, standing, movable, winner);
+            }
+
+            for(int slot=0; slot<slots; slot++){
+                if(!running[slot]){
+                    continue;
+                }
+                ticks[slot]++;
+                if(winner[slot] >= 0 || standing[slot] == 0 || movable[slot] == 0){
+                    record(slot, statistics);
+                    if(nextRace < lastRace){
+                        startRace(slot, nextRace++);
+                    }
+                    else{
+                        running[slot] = false;
+                        inProgress--;
+                    }
+                }
+            }
+        }
+        return statistics;
+    }
+
+    //put the field at the start of the given race in a slot
+    private void startRace(int slot, long race)
+    {
+        for(int lane=0; lane<names.length; lane++){
+            double c = startingConfidence[lane];
+            randomState[lane][slot] = SeededRandomSource.streamSeed(seed, race, lane);
+            distance[lane][slot] = 0;
+            confidence[lane][slot] = c;
+            fallChance[lane][slot] = 0.1*c*c;
+            fallen[lane][slot] = false;
+        }
+        running[slot] = true;
+        standing[slot] = names.length;
+        movable[slot] = movableAtStart;
+        winner[slot] = -1;
+        ticks[slot] = 0;
+    }
+
+    private void record(int slot, RaceStatistics statistics)
+    {
+        for(int lane=0; lane<names.length; lane++){
+            if(fallen[lane][slot]){
+                statistics.recordFall(lane);
+            }
+        }
+        statistics.recordRace((int) winner[slot], ticks[slot]);
+    }
+
+    //the vector kernel is in its own package so the rest of part1 compiles without the incubator module
+    private static LockstepKernel loadBestKernel()
+    {
+        try{
+            Class<?> vectorKernel = Class.forName("part1.vector.VectorLockstepKernel");
+            return (LockstepKernel) vectorKernel.getDeclaredConstructor().newInstance();
+        }catch(ReflectiveOperationException | LinkageError e){
+            return new ScalarLockstepKernel();
+        }
+    }
+}
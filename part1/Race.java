@@ -1,6 +1,5 @@
 package part1;
 import java.util.Scanner;
-import java.util.concurrent.TimeUnit;
 
 import java.lang.Math;
 
@@ -13,9 +12,34 @@ import java.lang.Math;
  */
 public class Race
 {
+    //limits on what can be entered for a race, however it is set up
+    public static final int MIN_HORSES = 2;
+    public static final int MAX_HORSES = 10;
+    public static final int MIN_DISTANCE = 0;
+    public static final int MAX_DISTANCE = 100;
+    public static final double MIN_CONFIDENCE = 0.0;
+    public static final double MAX_CONFIDENCE = 1.0;
+
+    //how long a tick lasts at normal speed
+    private static final long TICK_MILLIS = 100;
+
+    //how often a race is drawn, and how many frames can wait to be drawn before some are skipped
+    private static final int FRAMES_PER_SECOND = 30;
+    private static final int BUFFERED_FRAMES = 4;
+
+    //one scanner for the whole program, so typed-ahead or piped input is not lost between prompts
+    private static final Scanner INPUT = new Scanner(System.in);
+
     private int raceLength;
     private Horse [] participants;
     private Horse winner;
+    private RandomSource random = RandomSource.unseeded();
+    private long raceNumber;
+    private RaceRenderer renderer;
+    private TickScheduler scheduler = new TickScheduler(TICK_MILLIS);
+    private int ticks;
+    //kept between headless batches so running one allocates nothing
+    private double [] startingConfidence;
     /**
      * Constructor for objects of class Race
      * Initially there are no horses in the lanes
@@ -42,20 +66,37 @@ public class Race
         for(int i=0; i<numHorses; i++){
             String name = inputString("What is the name of Horse #" + (i+1));
             char horseSymbol = inputChar("What is the symbol of Horse #" + (i+1));
-            double confidenceRating = inputDouble("What is the confidence rating of Horse #" + (i+1), 1.0, 0.0);
+            double confidenceRating = inputDouble("What is the confidence rating of Horse #" + (i+1), MAX_CONFIDENCE, MIN_CONFIDENCE);
             horses[i]=addHorse(name, horseSymbol, confidenceRating);
         }
 
         this.participants=horses;
     }
+
+    /**
+     * Puts an already built field of horses in the lanes,
+     * one horse per lane in the order given
+     */
+    public void setHorses(Horse [] horses){
+        this.participants=horses;
+    }
+
+    /**
+     * Sets where the random numbers deciding moves and falls come from
+     * and starts counting races from 0 again, so a seeded source
+     * replays the same races in the same order
+     */
+    public void setRandomSource(RandomSource random){
+        this.random = random;
+        this.raceNumber = 0;
+    }
     
     //takes in a string message and prints it to the screen, then takes in a string from the keyboard
     public static String inputString(String message){
-        Scanner scanner = new Scanner(System.in);
         System.out.println(message);
         String inputed="";
  
-        inputed= scanner.nextLine();
+        inputed= INPUT.nextLine();
 
     
         return inputed;
@@ -119,11 +160,19 @@ public class Race
 
         return result;
     }
+    //an optional first argument is the seed to replay a race with,
+    //and an optional second one how many times faster to run it, or "unlimited"
     public static void main(String[] args){
         
-        int numHorses = inputInt("Please enter the number of horses in the race", 10, 2);
-        int raceDistance = inputInt("Please enter the distance of the race", 100, 0);
+        int numHorses = inputInt("Please enter the number of horses in the race", MAX_HORSES, MIN_HORSES);
+        int raceDistance = inputInt("Please enter the distance of the race", MAX_DISTANCE, MIN_DISTANCE);
         Race race = new Race(raceDistance);
+        if(args.length>0){
+            race.setRandomSource(RandomSource.seeded(Long.parseLong(args[0])));
+        }
+        if(args.length>1){
+            race.getTickScheduler().setTimeScale(args[1].equalsIgnoreCase("unlimited") ? TickScheduler.UNLIMITED : Double.parseDouble(args[1]));
+        }
         race.setHorses(numHorses);
         race.startRace();
     }
@@ -132,6 +181,8 @@ public class Race
      * The horse are brought to the start and
      * then repeatedly moved forward until the 
      * race is finished
+     * The race is drawn on a thread of its own, so a slow terminal
+     * only means skipped frames, never a slower race.
      */
     public void startRace()
     {
@@ -140,44 +191,207 @@ public class Race
         
         //reset all the lanes (all horses not fallen and back to 0). 
         Horse [] horses = this.getHorses();
-        for(Horse horse : horses){
-            horse.goBackToStart();
+        bringToStart(horses);
+
+        if(renderer == null){
+            renderer = new RaceRenderer(raceLength, true);
         }
+        FramePipeline frames = new FramePipeline(renderer, FRAMES_PER_SECOND, BUFFERED_FRAMES);
+        scheduler.start();
                       
-        while (!finished)
-        {
-            //move each horse
-            for(Horse horse : horses){
-                moveHorse(horse);
+        try{
+            while (!finished)
+            {
+                //move each horse and see whether the race is over
+                finished = playTick(horses);
+                            
+                //hand the race positions over to be printed
+                frames.publish(RaceFrame.of(ticks, horses));
+
+                //wait for the next tick
+                if(!finished){
+                    try{ 
+                        scheduler.awaitNextTick();
+                    }catch(InterruptedException e){
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
             }
-                        
-            //print the race positions
-            printRace();
-            
-               //move each horse
-               for(Horse horse : horses){
-                if(raceWonBy(horse)){
-                    setWinner(horse);
-                    finished = true;
-                    System.out.println("The winner is " + getWinner().getName());
+        }
+        finally{
+            //let the last frame be printed before the result, and never leave the drawing thread behind
+            try{
+                frames.finish();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if(getWinner() != null){
+            System.out.println("The winner is " + getWinner().getName());
+        }
+        else if(checkFallen(horses)){
+            System.out.println("All the horses have fallen, so there is no winner!");
+        }
+        else{
+            System.out.println("None of the horses still standing can move, so there is no winner!");
+        }
+    }
+    
+
+    /**
+     * Run a number of races one after another without printing
+     * anything or waiting between ticks, using the same rules as startRace.
+     * Every race starts from the field as it is now, so confidence lost
+     * in a fall only lasts until the end of that race.
+     * The horses are left where the last race finished, but with their starting confidence.
+     *
+     * @param numberOfRaces how many races to run
+     * @return the aggregated results of all the races
+     */
+    public RaceStatistics runHeadless(int numberOfRaces)
+    {
+        Horse [] horses = this.getHorses();
+        String [] names = new String[horses.length];
+        for(int i=0; i<horses.length; i++){
+            names[i] = horses[i].getName();
+        }
+        RaceStatistics statistics = new RaceStatistics(names);
+        runHeadless(numberOfRaces, statistics);
+        return statistics;
+    }
+
+    /**
+     * Run a number of races as runHeadless(int) does, adding the results to
+     * statistics that can be reset and used again for the next batch.
+     * Once the field is set, running a batch this way allocates nothing.
+     *
+     * @param numberOfRaces how many races to run
+     * @param statistics where the results are added, with one lane per horse
+     */
+    public void runHeadless(int numberOfRaces, RaceStatistics statistics)
+    {
+        Horse [] horses = this.getHorses();
+        if(startingConfidence == null || startingConfidence.length != horses.length){
+            startingConfidence = new double[horses.length];
+        }
+        for(int i=0; i<horses.length; i++){
+            startingConfidence[i] = horses[i].getConfidence();
+        }
+
+        for(int race=0; race<numberOfRaces; race++){
+            for(int i=0; i<horses.length; i++){
+                horses[i].setConfidence(startingConfidence[i]);
+            }
+            int ticks = runSilently(horses);
+
+            int winnerLane = -1;
+            for(int i=0; i<horses.length; i++){
+                if(horses[i] == getWinner()){
+                    winnerLane = i;
+                }
+                if(horses[i].hasFallen()){
+                    statistics.recordFall(i);
                 }
             }
-            
-            boolean allFallen=checkFallen(horses);
-            if(allFallen){
-                System.out.println("All the horses have fallen, so there is no winner!");
+            statistics.recordRace(winnerLane, ticks);
+        }
+
+        //leave the field with the confidence it started the batch with
+        for(int i=0; i<horses.length; i++){
+            horses[i].setConfidence(startingConfidence[i]);
+        }
+    }
+
+    /**
+     * Run a single race to the finish with no printing and no delay
+     * The winner is left in getWinner(), or null if every horse fell.
+     *
+     * @return the number of ticks the race took
+     */
+    private int runSilently(Horse [] horses)
+    {
+        bringToStart(horses);
+        while (!playTick(horses))
+        {
+        }
+        return ticks;
+    }
+
+    /**
+     * Run one race to the finish without printing anything, so that
+     * many races can run side by side, each on its own thread
+     *
+     * @param tickMillis how long to wait between ticks, or 0 to run flat out
+     * @return the winner, or null if there was no winner
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Horse runQuietly(long tickMillis) throws InterruptedException
+    {
+        Horse [] horses = this.getHorses();
+        TickScheduler pace = new TickScheduler(tickMillis);
+        bringToStart(horses);
+        pace.start();
+        while (!playTick(horses))
+        {
+            pace.awaitNextTick();
+        }
+        return getWinner();
+    }
+
+    /**
+     * @return what paces startRace, e.g. to change its speed while it is running
+     */
+    public TickScheduler getTickScheduler(){
+        return this.scheduler;
+    }
+
+    /**
+     * @return the number of ticks the last race run without printing took
+     */
+    public int getTicks(){
+        return this.ticks;
+    }
+
+    //reset all the lanes and start the next numbered race
+    void bringToStart(Horse [] horses)
+    {
+        setWinner(null);
+        for(Horse horse : horses){
+            horse.goBackToStart();
+        }
+        random.startRace(raceNumber++);
+        ticks = 0;
+    }
+
+    /**
+     * Move every horse once and see whether the race is over
+     * A race where every horse still standing has no confidence can never
+     * finish, so it is stopped and counted as having no winner.
+     *
+     * @return true if the race is finished
+     */
+    boolean playTick(Horse [] horses)
+    {
+        boolean finished = false;
+        ticks++;
+        for(int lane=0; lane<horses.length; lane++){
+            moveHorse(horses[lane], lane);
+        }
+
+        for(Horse horse : horses){
+            if(raceWonBy(horse)){
+                setWinner(horse);
                 finished = true;
             }
-            //wait for 100 milliseconds
-            try{ 
-                TimeUnit.MILLISECONDS.sleep(100);
-            }catch(Exception e){}
-           
         }
 
-       
+        if(checkFallen(horses) || !canStillMove(horses)){
+            finished = true;
+        }
+        return finished;
     }
-    
 
     public Horse getWinner(){
         return this.winner;
@@ -192,6 +406,16 @@ public class Race
         }
             return true;
     }
+
+    //true if at least one horse is still standing with some confidence left
+    private boolean canStillMove(Horse [] horses){
+        for(Horse horse : horses){
+            if(!horse.hasFallen() && horse.getConfidence() > 0){
+                return true;
+            }
+        }
+        return false;
+    }
     public void setWinner(Horse winner){
         this.winner = winner;
     }
@@ -201,8 +425,9 @@ public class Race
      * A fallen horse cannot move
      * 
      * @param theHorse the horse to be moved
+     * @param lane the lane the horse is running in
      */
-    private void moveHorse(Horse theHorse)
+    void moveHorse(Horse theHorse, int lane)
     {
         //if the horse has fallen it cannot move, 
         //so only run if it has not fallen
@@ -210,7 +435,7 @@ public class Race
         if  (!theHorse.hasFallen())
         {
             //the probability that the horse will move forward depends on the confidence;
-            if (Math.random() < theHorse.getConfidence())
+            if (random.nextDouble(lane) < theHorse.getConfidence())
             {
                theHorse.moveForward();
             }
@@ -218,7 +443,7 @@ public class Race
             //the probability that the horse will fall is very small (max is 0.1)
             //but will also will depends exponentially on confidence 
             //so if you double the confidence, the probability that it will fall is *2
-            if (Math.random() < (0.1*theHorse.getConfidence()*theHorse.getConfidence()))
+            if (random.nextDouble(lane) < (0.1*theHorse.getConfidence()*theHorse.getConfidence()))
             {
                 theHorse.fall();
             }
@@ -242,87 +467,4 @@ public class Race
             return false;
         }
     }
-    
-    /***
-     * Print the race on the terminal
-     */
-    private void printRace()
-    {
-        System.out.print("\033[2J\033[H\033[3J");
-        
-        multiplePrint('=',raceLength+3); //top edge of track
-        System.out.println();
-        
-        Horse [] horses = this.getHorses();
-            
-            for(Horse horse : horses){
-                printLane(horse);
-                System.out.println(); 
-            }
-                  
-    
-        multiplePrint('=',raceLength+3); //bottom edge of track
-        System.out.println();
-            
-    }
-    
-    /**
-     * print a horse's lane during the race
-     * for example
-     * |           X                      |
-     * to show how far the horse has run
-     */
-    private void printLane(Horse theHorse)
-    {
-        //calculate how many spaces are needed before
-        //and after the horse
-        int spacesBefore = theHorse.getDistanceTravelled();
-        int spacesAfter = raceLength - theHorse.getDistanceTravelled();
-        
-        //print a | for the beginning of the lane
-        System.out.print('|');
-        
-        //print the spaces before the horse
-        multiplePrint(' ',spacesBefore);
-        
-        //if the horse has fallen then print dead
-        //else print the horse's symbol
-        if(theHorse.hasFallen())
-        {
-            System.out.print('❌');
-        }
-        else
-        {
-            System.out.print(theHorse.getSymbol());
-        }
-        
-        //print the spaces after the horse
-        multiplePrint(' ',spacesAfter);
-        
-        //print the | for the end of the track
-        System.out.print('|');
-        if(theHorse.hasFallen()){
-            System.out.print(theHorse.getName() + " has fallen  " + " (New Confidence Rating: " + theHorse.getConfidence() + ")");
-        }
-        else{
-            System.out.print(theHorse.getName() + " (Current Confidence: " + theHorse.getConfidence() + ")");
-        }
-    }
-        
-    
-    /***
-     * print a character a given number of times.
-     * e.g. printmany('x',5) will print: xxxxx
-     * 
-     * @param aChar the character to Print
-     */
-    private void multiplePrint(char aChar, int times)
-    {
-        int i = 0;
-        while (i < times)
-        {
-            System.out.print(aChar);
-            i = i + 1;
-        }
-    }
 }
@@ -0,0 +1,134 @@
+package part1;
+import java.util.List;
+
+public class RaceEngineTester {
+
+    private static final long SEED = 20240417L;
+
+    public static void main(String[] args) {
+        RaceEngineTester tester = new RaceEngineTester();
+        tester.testArrayEngineMatchesRace();
+        tester.testLockstepEngineMatchesArrayEngine();
+        tester.testEventEngineAgainstExactOdds(20);
+        tester.testEventEngineAgainstExactOdds(3);
+        tester.testStalledRaces();
+        System.out.println("All tests passed.");
+    }
+
+    private static Horse[] field() {
+        return new Horse[] {new Horse("Thunder", 'T', 0.9), new Horse("Storm", 'S', 0.6),
+                            new Horse("Breeze", 'B', 0.3), new Horse("Gale", 'G', 0.3)};
+    }
+
+    public void testArrayEngineMatchesRace() {
+        // Race by race, the same seed should give the same winner, ticks, distances and falls
+        int raceLength = 15;
+        Race race = new Race(raceLength);
+        race.setHorses(field());
+        race.setRandomSource(RandomSource.seeded(SEED));
+        Horse[] horses = race.getHorses();
+        ArrayRaceEngine engine = new ArrayRaceEngine(raceLength, field(), RandomSource.seeded(SEED));
+
+        for (int n = 0; n < 5_000; n++) {
+            race.runHeadless(1);
+            int winner = engine.runRace(n);
+            assert winner == lane(horses, race.getWinner()) : "Race " + n + " has a different winner";
+            assert engine.getTicks() == race.getTicks() : "Race " + n + " takes a different number of ticks";
+            for (int lane = 0; lane < horses.length; lane++) {
+                assert engine.getDistanceTravelled(lane) == horses[lane].getDistanceTravelled()
+                    : "Race " + n + " leaves lane " + lane + " somewhere else";
+                assert engine.hasFallen(lane) == horses[lane].hasFallen()
+                    : "Race " + n + " has a different fall in lane " + lane;
+            }
+        }
+
+        // The aggregated batch should be the same too
+        race.setRandomSource(RandomSource.seeded(SEED));
+        assertSameStatistics(race.runHeadless(5_000), engine.runRaces(0, 5_000), "Race and ArrayRaceEngine");
+    }
+
+    public void testLockstepEngineMatchesArrayEngine() {
+        // Race numbers, not the order races finish in, decide the results, so any block size gives the same batch
+        int raceLength = 15;
+        RaceStatistics expected = new ArrayRaceEngine(raceLength, field(), RandomSource.seeded(SEED))
+            .runRaces(100, 20_000);
+
+        LockstepKernel scalar = new ScalarLockstepKernel();
+        for (int slots : new int[] {1, 7, LockstepRaceEngine.DEFAULT_SLOTS}) {
+            LockstepRaceEngine engine = new LockstepRaceEngine(raceLength, field(), SEED, scalar, slots);
+            assertSameStatistics(expected, engine.runRaces(100, 20_000), "Scalar kernel with " + slots + " slots");
+        }
+
+        // The vector kernel is only loaded when run with --add-modules jdk.incubator.vector
+        LockstepKernel best = LockstepRaceEngine.bestKernel();
+        if (!(best instanceof ScalarLockstepKernel)) {
+            LockstepRaceEngine engine = new LockstepRaceEngine(raceLength, field(), SEED);
+            assertSameStatistics(expected, engine.runRaces(100, 20_000), best.getName() + " kernel");
+        }
+    }
+
+    public void testEventEngineAgainstExactOdds(int raceLength) {
+        // The event engine draws different numbers, so only its win rates can be checked, against the exact odds
+        int races = 200_000;
+        ExactOddsCalculator exact = new ExactOddsCalculator(raceLength, List.of(field()));
+        RaceStatistics statistics = new EventRaceEngine(raceLength, field(), RandomSource.seeded(SEED)).runRaces(races);
+
+        for (int lane = 0; lane < statistics.getNumberOfLanes(); lane++) {
+            double p = exact.getWinProbability(lane);
+            assert Math.abs(statistics.getWinRate(lane) - p) < tolerance(p, races)
+                : "Win rate of lane " + lane + " does not match the exact odds over " + raceLength;
+        }
+        double noWinner = (double) statistics.getNoWinnerCount() / races;
+        assert Math.abs(noWinner - exact.getNoWinnerProbability()) < tolerance(exact.getNoWinnerProbability(), races)
+            : "No-winner rate does not match the exact odds over " + raceLength;
+    }
+
+    public void testStalledRaces() {
+        // A horse with no confidence never finishes, so once the others fall the race stalls with no winner
+        int raceLength = 10;
+        Horse[] stalling = {new Horse("Thunder", 'T', 0.0), new Horse("Storm", 'S', 0.5)};
+
+        Race race = new Race(raceLength);
+        race.setHorses(new Horse[] {new Horse("Thunder", 'T', 0.0), new Horse("Storm", 'S', 0.5)});
+        race.setRandomSource(RandomSource.seeded(SEED));
+        RaceStatistics expected = race.runHeadless(20_000);
+        assert expected.getNoWinnerCount() > 0 : "Some races should stall";
+        assert expected.getWins(0) == 0 : "A horse with no confidence cannot win";
+
+        assertSameStatistics(expected, new ArrayRaceEngine(raceLength, stalling, RandomSource.seeded(SEED))
+            .runRaces(0, 20_000), "ArrayRaceEngine with a stalled field");
+        assertSameStatistics(expected, new LockstepRaceEngine(raceLength, stalling, SEED).runRaces(0, 20_000),
+            "LockstepRaceEngine with a stalled field");
+
+        ExactOddsCalculator exact = new ExactOddsCalculator(raceLength, List.of(stalling));
+        RaceStatistics events = new EventRaceEngine(raceLength, stalling, RandomSource.seeded(SEED)).runRaces(200_000);
+        double noWinner = (double) events.getNoWinnerCount() / 200_000;
+        assert events.getWins(0) == 0 : "A horse with no confidence cannot win an event-skipping race";
+        assert Math.abs(noWinner - exact.getNoWinnerProbability()) < tolerance(exact.getNoWinnerProbability(), 200_000)
+            : "Stalled races should be as common as the exact odds say";
+    }
+
+    // five standard errors of a rate measured over a number of races, and never less than 0.001
+    private static double tolerance(double p, int races) {
+        return Math.max(0.001, 5 * Math.sqrt(p * (1 - p) / races));
+    }
+
+    private static int lane(Horse[] horses, Horse horse) {
+        for (int lane = 0; lane < horses.length; lane++) {
+            if (horses[lane] == horse) {
+                return lane;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertSameStatistics(RaceStatistics expected, RaceStatistics actual, String engine) {
+        assert actual.getRaces() == expected.getRaces() : engine + " ran a different number of races";
+        assert actual.getNoWinnerCount() == expected.getNoWinnerCount() : engine + " has a different no-winner count";
+        assert actual.getMeanTicks() == expected.getMeanTicks() : engine + " has a different mean race length";
+        for (int lane = 0; lane < expected.getNumberOfLanes(); lane++) {
+            assert actual.getWins(lane) == expected.getWins(lane) : engine + " has different wins in lane " + lane;
+            assert actual.getFalls(lane) == expected.getFalls(lane) : engine + " has different falls in lane " + lane;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package part1;
+
+/**
+ * A still picture of a race at the end of one tick: where every horse is,
+ * whether it has fallen and how confident it is. A frame never changes once
+ * it is taken, so it can be handed to another thread to draw while the
+ * race carries on.
+ */
+public final class RaceFrame
+{
+    private final long tick;
+    private final String [] names;
+    private final char [] symbols;
+    private final int [] distance;
+    private final boolean [] fallen;
+    private final double [] confidence;
+
+    private RaceFrame(long tick, String [] names, char [] symbols, int [] distance, boolean [] fallen, double [] confidence)
+    {
+        this.tick = tick;
+        this.names = names;
+        this.symbols = symbols;
+        this.distance = distance;
+        this.fallen = fallen;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Take a picture of the horses as they are now
+     *
+     * @param tick the tick the race has reached
+     * @param horses the horses in lane order
+     */
+    public static RaceFrame of(long tick, Horse [] horses)
+    {
+        int lanes = horses.length;
+        String [] names = new String[lanes];
+        char [] symbols = new char[lanes];
+        int [] distance = new int[lanes];
+        boolean [] fallen = new boolean[lanes];
+        double [] confidence = new double[lanes];
+        for(int lane=0; lane<lanes; lane++){
+            Horse horse = horses[lane];
+            names[lane] = horse.getName();
+            symbols[lane] = horse.getSymbol();
+            distance[lane] = horse.getDistanceTravelled();
+            fallen[lane] = horse.hasFallen();
+            confidence[lane] = horse.getConfidence();
+        }
+        return new RaceFrame(tick, names, symbols, distance, fallen, confidence);
+    }
+
+    public long getTick()
+    {
+        return tick;
+    }
+
+    public int getNumberOfLanes()
+    {
+        return names.length;
+    }
+
+    public String getName(int lane)
+    {
+        return names[lane];
+    }
+
+    public char getSymbol(int lane)
+    {
+        return symbols[lane];
+    }
+
+    public int getDistanceTravelled(int lane)
+    {
+        return distance[lane];
+    }
+
+    public boolean hasFallen(int lane)
+    {
+        return fallen[lane];
+    }
+
+    public double getConfidence(int lane)
+    {
+        return confidence[lane];
+    }
+}
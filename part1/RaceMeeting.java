@@ -0,0 +1,140 @@
+package part1;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Runs a meeting of many independent races at once.
+ *
+ * Every race is its own Race, run quietly on its own virtual thread. A paced race
+ * spends nearly all its time asleep between ticks, and a sleeping virtual thread
+ * gives its carrier back, so thousands of paced races share a handful of platform
+ * threads. A semaphore caps how many races run at the same time, and finished
+ * races are collected from a completion queue in the order they finish.
+ */
+public class RaceMeeting
+{
+    private int maxConcurrentRaces;
+    private long tickMillis;
+
+    /**
+     * Constructor for objects of class RaceMeeting
+     *
+     * @param maxConcurrentRaces the most races allowed to run at the same time
+     * @param tickMillis how long each race waits between ticks, or 0 to run flat out
+     */
+    public RaceMeeting(int maxConcurrentRaces, long tickMillis)
+    {
+        if(maxConcurrentRaces < 1){
+            throw new IllegalArgumentException("A meeting must be able to run at least one race");
+        }
+        this.maxConcurrentRaces = maxConcurrentRaces;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Run every race and collect the results
+     *
+     * @param specs the races to run
+     * @return the results in the order the races finished
+     */
+    public List<RaceResult> run(Iterable<RaceSpec> specs) throws InterruptedException
+    {
+        List<RaceResult> results = new ArrayList<>();
+        run(specs, results::add);
+        return results;
+    }
+
+    /**
+     * Run every race, handing each result over as soon as its race finishes
+     * Races are only built when a slot is free for them, so the specs can be
+     * read lazily from somewhere much bigger than memory.
+     *
+     * @param specs the races to run
+     * @param onFinish called on this thread with each result, in the order the races finish
+     */
+    public void run(Iterable<RaceSpec> specs, Consumer<RaceResult> onFinish) throws InterruptedException
+    {
+        Semaphore slots = new Semaphore(maxConcurrentRaces);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            CompletionService<RaceResult> finished = new ExecutorCompletionService<>(executor);
+            long outstanding = 0;
+            for(RaceSpec spec : specs){
+                long submittedAt = System.nanoTime();
+                slots.acquire();
+                long startedAt = System.nanoTime();
+                finished.submit(() -> {
+                    try{
+                        return runRace(spec, startedAt - submittedAt);
+                    }
+                    finally{
+                        slots.release();
+                    }
+                });
+                outstanding++;
+
+                //pass on whatever has finished while we were waiting
+                Future<RaceResult> done;
+                while ((done = finished.poll()) != null)
+                {
+                    onFinish.accept(resultOf(done));
+                    outstanding--;
+                }
+            }
+
+            while (outstanding > 0)
+            {
+                onFinish.accept(resultOf(finished.take()));
+                outstanding--;
+            }
+        }
+    }
+
+    /**
+     * Run a meeting from a file of race specs and print each result as its race finishes
+     * Arguments: a file of specs (or - for standard input), then optionally
+     * the most races to run at once and the milliseconds between ticks.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if(args.length < 1){
+            System.out.println("Usage: java part1.RaceMeeting <specs file or -> [max concurrent races] [tick millis]");
+            return;
+        }
+        int maxConcurrentRaces = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long tickMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        try (RaceSpecReader specs = RaceSpecReader.open(args[0]))
+        {
+            new RaceMeeting(maxConcurrentRaces, tickMillis).run(specs, System.out::println);
+        }
+    }
+
+    private RaceResult runRace(RaceSpec spec, long waitNanos) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        Race race = spec.toRace();
+        Horse winner = race.runQuietly(tickMillis);
+        long runNanos = System.nanoTime() - start;
+        return new RaceResult(spec.getName(), winner == null ? null : winner.getName(), race.getTicks(), waitNanos, runNanos);
+    }
+
+    private static RaceResult resultOf(Future<RaceResult> done) throws InterruptedException
+    {
+        try{
+            return done.get();
+        }
+        catch(ExecutionException e){
+            throw new IllegalStateException("A race in the meeting failed", e.getCause());
+        }
+    }
+}
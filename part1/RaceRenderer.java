@@ -0,0 +1,263 @@
+package part1;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Draws frames of a race on the terminal. Each frame is composed in one reusable
+ * byte buffer and handed to the output in a single write, instead of one
+ * System.out.print per character.
+ *
+ * In incremental mode only the first frame clears the screen; after that the
+ * cursor is moved to each lane whose horse moved or fell since the last frame
+ * and just that lane is rewritten, which stops the track flickering.
+ */
+public class RaceRenderer
+{
+    private static final byte [] CLEAR_SCREEN = "\033[2J\033[H\033[3J".getBytes(StandardCharsets.US_ASCII);
+    private static final byte [] CLEAR_TO_END_OF_LINE = "\033[K".getBytes(StandardCharsets.US_ASCII);
+    private static final byte [] FALLEN = "❌".getBytes(StandardCharsets.UTF_8);
+
+    private int raceLength;
+    private OutputStream out;
+    private boolean incremental;
+
+    private byte [] buffer = new byte[4096];
+    private int length;
+
+    //what each lane looked like in the last frame written
+    private int [] shownDistance;
+    private boolean [] shownFallen;
+    private boolean drawn;
+
+    //the text after each lane, rebuilt only when the horse's confidence or state changes
+    private byte [][] labels;
+    private double [] labelConfidence;
+    private boolean [] labelFallen;
+
+    /**
+     * Constructor for objects of class RaceRenderer
+     * Frames are written straight to standard output.
+     *
+     * @param raceLength the length of the track
+     * @param incremental true to rewrite only the lanes that changed
+     */
+    public RaceRenderer(int raceLength, boolean incremental)
+    {
+        this(raceLength, incremental, new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * Constructor for objects of class RaceRenderer
+     *
+     * @param raceLength the length of the track
+     * @param incremental true to rewrite only the lanes that changed
+     * @param out where the frames are written
+     */
+    public RaceRenderer(int raceLength, boolean incremental, OutputStream out)
+    {
+        this.raceLength = raceLength;
+        this.incremental = incremental;
+        this.out = out;
+    }
+
+    /**
+     * Make the next frame a full redraw, e.g. after something else was printed
+     */
+    public void invalidate()
+    {
+        drawn = false;
+    }
+
+    /**
+     * Draw a frame of the race
+     *
+     * @param frame the race as it stood at the end of a tick
+     */
+    public void render(RaceFrame frame)
+    {
+        int lanes = frame.getNumberOfLanes();
+        if(shownDistance == null || shownDistance.length != lanes){
+            resize(lanes);
+        }
+
+        length = 0;
+        if(!incremental || !drawn){
+            appendFullFrame(frame);
+        }
+        else{
+            appendChangedLanes(frame);
+        }
+
+        if(length > 0){
+            try{
+                out.write(buffer, 0, length);
+                out.flush();
+            }catch(IOException e){
+                //nothing sensible to do if the terminal has gone away
+            }
+        }
+        drawn = true;
+    }
+
+    private void appendFullFrame(RaceFrame frame)
+    {
+        append(CLEAR_SCREEN);
+        appendRepeated('=', raceLength+3); //top edge of track
+        append('\n');
+        for(int lane=0; lane<frame.getNumberOfLanes(); lane++){
+            appendLane(frame, lane);
+            append('\n');
+        }
+        appendRepeated('=', raceLength+3); //bottom edge of track
+        append('\n');
+    }
+
+    private void appendChangedLanes(RaceFrame frame)
+    {
+        boolean changed = false;
+        int lanes = frame.getNumberOfLanes();
+        for(int lane=0; lane<lanes; lane++){
+            if(frame.getDistanceTravelled(lane) != shownDistance[lane] || frame.hasFallen(lane) != shownFallen[lane]){
+                //lanes start on the second row of the screen
+                appendCursorMove(lane + 2);
+                appendLane(frame, lane);
+                append(CLEAR_TO_END_OF_LINE);
+                changed = true;
+            }
+        }
+        if(changed){
+            //leave the cursor under the bottom edge for anything printed afterwards
+            appendCursorMove(lanes + 3);
+        }
+    }
+
+    /**
+     * A horse's lane, for example
+     * |           X                      |Name (Current Confidence: 0.5)
+     */
+    private void appendLane(RaceFrame frame, int lane)
+    {
+        int distance = frame.getDistanceTravelled(lane);
+        boolean fallen = frame.hasFallen(lane);
+        append('|');
+        appendRepeated(' ', distance);
+        if(fallen){
+            append(FALLEN);
+        }
+        else{
+            appendChar(frame.getSymbol(lane));
+        }
+        appendRepeated(' ', raceLength - distance);
+        append('|');
+        append(label(frame, lane));
+
+        shownDistance[lane] = distance;
+        shownFallen[lane] = fallen;
+    }
+
+    private byte [] label(RaceFrame frame, int lane)
+    {
+        boolean fallen = frame.hasFallen(lane);
+        double confidence = frame.getConfidence(lane);
+        if(labels[lane] == null || labelFallen[lane] != fallen || labelConfidence[lane] != confidence){
+            String text;
+            if(fallen){
+                text = frame.getName(lane) + " has fallen  " + " (New Confidence Rating: " + confidence + ")";
+            }
+            else{
+                text = frame.getName(lane) + " (Current Confidence: " + confidence + ")";
+            }
+            labels[lane] = text.getBytes(StandardCharsets.UTF_8);
+            labelFallen[lane] = fallen;
+            labelConfidence[lane] = confidence;
+        }
+        return labels[lane];
+    }
+
+    private void resize(int lanes)
+    {
+        shownDistance = new int[lanes];
+        shownFallen = new boolean[lanes];
+        labels = new byte[lanes][];
+        labelConfidence = new double[lanes];
+        labelFallen = new boolean[lanes];
+        drawn = false;
+    }
+
+    //ESC [ row ; 1 H moves the cursor to the start of a row
+    private void appendCursorMove(int row)
+    {
+        append((byte) 0x1b);
+        append('[');
+        appendNumber(row);
+        append(';');
+        append('1');
+        append('H');
+    }
+
+    private void appendNumber(int number)
+    {
+        if(number >= 10){
+            appendNumber(number / 10);
+        }
+        append((char) ('0' + number % 10));
+    }
+
+    //a single character as UTF-8; a symbol is one char, so half of a surrogate pair
+    //cannot be encoded and is written as '?', as System.out.print does
+    private void appendChar(char c)
+    {
+        if(Character.isSurrogate(c)){
+            append('?');
+        }
+        else if(c < 0x80){
+            append((byte) c);
+        }
+        else if(c < 0x800){
+            append((byte) (0xc0 | (c >> 6)));
+            append((byte) (0x80 | (c & 0x3f)));
+        }
+        else{
+            append((byte) (0xe0 | (c >> 12)));
+            append((byte) (0x80 | ((c >> 6) & 0x3f)));
+            append((byte) (0x80 | (c & 0x3f)));
+        }
+    }
+
+    private void appendRepeated(char c, int times)
+    {
+        ensureRoom(Math.max(times, 0));
+        for(int i=0; i<times; i++){
+            buffer[length++] = (byte) c;
+        }
+    }
+
+    private void append(char c)
+    {
+        append((byte) c);
+    }
+
+    private void append(byte b)
+    {
+        ensureRoom(1);
+        buffer[length++] = b;
+    }
+
+    private void append(byte [] bytes)
+    {
+        ensureRoom(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureRoom(int extra)
+    {
+        if(length + extra > buffer.length){
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
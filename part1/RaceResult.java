@@ -0,0 +1,75 @@
+package part1;
+
+/**
+ * The outcome of one race in a meeting and how long it took
+ */
+public class RaceResult
+{
+    private String raceName;
+    private String winnerName;
+    private int ticks;
+    private long waitNanos;
+    private long runNanos;
+
+    /**
+     * Constructor for objects of class RaceResult
+     *
+     * @param raceName the name of the race
+     * @param winnerName the name of the winner, or null if there was no winner
+     * @param ticks the number of ticks the race took
+     * @param waitNanos how long the race waited for a free slot before starting
+     * @param runNanos how long the race took once started
+     */
+    public RaceResult(String raceName, String winnerName, int ticks, long waitNanos, long runNanos)
+    {
+        this.raceName = raceName;
+        this.winnerName = winnerName;
+        this.ticks = ticks;
+        this.waitNanos = waitNanos;
+        this.runNanos = runNanos;
+    }
+
+    public String getRaceName()
+    {
+        return raceName;
+    }
+
+    public String getWinnerName()
+    {
+        return winnerName;
+    }
+
+    public boolean hasWinner()
+    {
+        return winnerName != null;
+    }
+
+    public int getTicks()
+    {
+        return ticks;
+    }
+
+    public long getWaitNanos()
+    {
+        return waitNanos;
+    }
+
+    public long getRunNanos()
+    {
+        return runNanos;
+    }
+
+    /**
+     * @return the time from the race being submitted to it finishing
+     */
+    public long getLatencyNanos()
+    {
+        return waitNanos + runNanos;
+    }
+
+    public String toString()
+    {
+        return raceName + ": " + (hasWinner() ? "won by " + winnerName : "no winner")
+            + " in " + ticks + " ticks (" + String.format("%.1f", getLatencyNanos() / 1e6) + " ms)";
+    }
+}
@@ -0,0 +1,71 @@
+package part1;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything needed to set up a race without asking anyone:
+ * its name, its length and the horses in lane order.
+ */
+public class RaceSpec
+{
+    private String name;
+    private int raceLength;
+    private List<String> horseNames = new ArrayList<>();
+    private List<Character> horseSymbols = new ArrayList<>();
+    private List<Double> horseConfidence = new ArrayList<>();
+
+    /**
+     * Constructor for objects of class RaceSpec
+     * Initially there are no horses in the lanes
+     *
+     * @param name what the race is called in results
+     * @param raceLength the length of the race
+     */
+    public RaceSpec(String name, int raceLength)
+    {
+        this.name = name;
+        this.raceLength = raceLength;
+    }
+
+    /**
+     * Adds a horse in the next free lane
+     *
+     * @return this spec, so horses can be added one after another
+     */
+    public RaceSpec addHorse(String horseName, char horseSymbol, double confidenceRating)
+    {
+        horseNames.add(horseName);
+        horseSymbols.add(horseSymbol);
+        horseConfidence.add(confidenceRating);
+        return this;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getRaceLength()
+    {
+        return raceLength;
+    }
+
+    public int getNumberOfHorses()
+    {
+        return horseNames.size();
+    }
+
+    /**
+     * @return a new race with fresh horses, ready to run
+     */
+    public Race toRace()
+    {
+        Horse [] horses = new Horse[horseNames.size()];
+        for(int i=0; i<horses.length; i++){
+            horses[i] = new Horse(horseNames.get(i), horseSymbols.get(i), horseConfidence.get(i));
+        }
+        Race race = new Race(raceLength);
+        race.setHorses(horses);
+        return race;
+    }
+}
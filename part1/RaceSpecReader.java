@@ -0,0 +1,248 @@
+package part1;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads race specs one at a time from a file or standard input, instead of
+ * asking for every horse at the keyboard. Only the race being read is held
+ * in memory, so a file of a million races is never loaded all at once.
+ *
+ * The format is comma separated, one row per line. Each race starts with a
+ * race row and is followed by one row per horse, in lane order:
+ *
+ *     # blank lines and lines starting with # are ignored
+ *     race,Derby,100
+ *     Thunder,T,0.8
+ *     Storm,S,0.6
+ *
+ * A row starting with race always starts a new race, so a horse cannot be
+ * called race: a row such as Race,R,1 would read just as well as a race
+ * named R of length 1. Rather than guess, a race row that would also be a
+ * valid horse row is rejected.
+ *
+ * Rows are checked against the same limits as the keyboard prompts in Race.
+ * A row that breaks them stops the reader with an IllegalArgumentException
+ * naming the line, since there is nobody to ask for a corrected value.
+ */
+public class RaceSpecReader implements Iterable<RaceSpec>, Closeable
+{
+    private BufferedReader in;
+    private int lineNumber;
+    private String [] nextHeader;
+    private int nextHeaderLine;
+
+    /**
+     * Constructor for objects of class RaceSpecReader
+     *
+     * @param in where the rows are read from
+     */
+    public RaceSpecReader(Reader in)
+    {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    /**
+     * @param path a file of race specs, or - for standard input
+     */
+    public static RaceSpecReader open(String path) throws IOException
+    {
+        if(path.equals("-")){
+            return new RaceSpecReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        return new RaceSpecReader(Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the next race
+     *
+     * @return the next race, or null when there are no more
+     */
+    public RaceSpec next() throws IOException
+    {
+        if(nextHeader == null){
+            nextHeader = readRow();
+            nextHeaderLine = lineNumber;
+            if(nextHeader == null){
+                return null;
+            }
+        }
+        String [] header = nextHeader;
+        int headerLine = nextHeaderLine;
+        nextHeader = null;
+
+        if(!isRaceHeader(header, headerLine) || header.length != 3){
+            throw invalid(headerLine, "expected race,<name>,<distance>");
+        }
+        int distance = parseInt(header[2], Race.MAX_DISTANCE, Race.MIN_DISTANCE, headerLine);
+        RaceSpec spec = new RaceSpec(header[1], distance);
+
+        String [] row;
+        while ((row = readRow()) != null)
+        {
+            if(isRaceHeader(row, lineNumber)){
+                nextHeader = row;
+                nextHeaderLine = lineNumber;
+                break;
+            }
+            if(row.length != 3){
+                throw invalid(lineNumber, "expected <name>,<symbol>,<confidence>");
+            }
+            if(row[1].length() != 1){
+                throw invalid(lineNumber, "symbol must be a single character");
+            }
+            if(spec.getNumberOfHorses() == Race.MAX_HORSES){
+                throw invalid(lineNumber, "a race can have at most " + Race.MAX_HORSES + " horses");
+            }
+            double confidence = parseDouble(row[2], Race.MAX_CONFIDENCE, Race.MIN_CONFIDENCE, lineNumber);
+            spec.addHorse(row[0], row[1].charAt(0), confidence);
+        }
+
+        if(spec.getNumberOfHorses() < Race.MIN_HORSES){
+            throw invalid(headerLine, "a race needs at least " + Race.MIN_HORSES + " horses");
+        }
+        return spec;
+    }
+
+    /**
+     * The remaining races, read as the iteration goes. The reader can only be iterated once.
+     */
+    public Iterator<RaceSpec> iterator()
+    {
+        return new Iterator<RaceSpec>()
+        {
+            private RaceSpec upcoming;
+
+            public boolean hasNext()
+            {
+                if(upcoming == null){
+                    try{
+                        upcoming = RaceSpecReader.this.next();
+                    }catch(IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return upcoming != null;
+            }
+
+            public RaceSpec next()
+            {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                RaceSpec spec = upcoming;
+                upcoming = null;
+                return spec;
+            }
+        };
+    }
+
+    /**
+     * The remaining races as ready-to-run Race objects, each built only when it is reached
+     */
+    public Iterable<Race> races()
+    {
+        return () -> new Iterator<Race>()
+        {
+            private Iterator<RaceSpec> specs = iterator();
+
+            public boolean hasNext()
+            {
+                return specs.hasNext();
+            }
+
+            public Race next()
+            {
+                return specs.next().toRace();
+            }
+        };
+    }
+
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    //the next row that isn't blank or a comment, split into trimmed fields
+    private String [] readRow() throws IOException
+    {
+        String line;
+        while ((line = in.readLine()) != null)
+        {
+            lineNumber++;
+            String trimmed = line.trim();
+            if(trimmed.isEmpty() || trimmed.startsWith("#")){
+                continue;
+            }
+            String [] fields = trimmed.split(",", -1);
+            for(int i=0; i<fields.length; i++){
+                fields[i] = fields[i].trim();
+            }
+            return fields;
+        }
+        return null;
+    }
+
+    //true for a row starting with race, as long as it could not be a horse named race instead
+    private boolean isRaceHeader(String [] row, int line)
+    {
+        if(!row[0].equalsIgnoreCase("race")){
+            return false;
+        }
+        if(row.length == 3 && row[1].length() == 1 && isConfidence(row[2])){
+            throw invalid(line, "a horse cannot be named '" + row[0] + "', since a row starting with race starts a new race");
+        }
+        return true;
+    }
+
+    private static boolean isConfidence(String text)
+    {
+        try{
+            double confidence = Double.parseDouble(text);
+            return confidence <= Race.MAX_CONFIDENCE && confidence >= Race.MIN_CONFIDENCE;
+        }catch(NumberFormatException e){
+            return false;
+        }
+    }
+
+    private int parseInt(String text, int topLimit, int bottomLimit, int line)
+    {
+        int result;
+        try{
+            result = Integer.parseInt(text);
+        }catch(NumberFormatException e){
+            throw invalid(line, "'" + text + "' is not a valid number");
+        }
+        if(result > topLimit || result < bottomLimit){
+            throw invalid(line, result + " is not between " + bottomLimit + " and " + topLimit);
+        }
+        return result;
+    }
+
+    private double parseDouble(String text, double topLimit, double bottomLimit, int line)
+    {
+        double result;
+        try{
+            result = Double.parseDouble(text);
+        }catch(NumberFormatException e){
+            throw invalid(line, "'" + text + "' is not a valid decimal");
+        }
+        if(!(result <= topLimit && result >= bottomLimit)){
+            throw invalid(line, result + " is not between " + bottomLimit + " and " + topLimit);
+        }
+        return result;
+    }
+
+    private static IllegalArgumentException invalid(int line, String problem)
+    {
+        return new IllegalArgumentException("line " + line + ": " + problem);
+    }
+}
@@ -0,0 +1,146 @@
+package part1;
+import java.util.Arrays;
+
+/**
+ * Aggregated results of a batch of races run over the same field.
+ * Lanes are numbered in the order the horses were given to the race.
+ */
+public class RaceStatistics
+{
+    private String [] horseNames;
+    private long [] wins;
+    private long [] falls;
+    private long races;
+    private long noWinner;
+    private long totalTicks;
+
+    /**
+     * Constructor for objects of class RaceStatistics
+     * Initially no races have been recorded
+     *
+     * @param horseNames the names of the horses, one per lane
+     */
+    public RaceStatistics(String [] horseNames)
+    {
+        this.horseNames = horseNames.clone();
+        this.wins = new long[horseNames.length];
+        this.falls = new long[horseNames.length];
+    }
+
+    /**
+     * Forget every race recorded so far, so the statistics can be used for another batch
+     */
+    public void reset()
+    {
+        Arrays.fill(wins, 0);
+        Arrays.fill(falls, 0);
+        races = 0;
+        noWinner = 0;
+        totalTicks = 0;
+    }
+
+    /**
+     * Record the outcome of a single race
+     *
+     * @param winnerLane the lane of the winning horse, or -1 if there was no winner
+     * @param ticks the number of ticks the race took
+     */
+    void recordRace(int winnerLane, int ticks)
+    {
+        races++;
+        totalTicks += ticks;
+        if(winnerLane < 0){
+            noWinner++;
+        }
+        else{
+            wins[winnerLane]++;
+        }
+    }
+
+    /**
+     * Record that the horse in a lane fell during the race just run
+     *
+     * @param lane the lane of the horse that fell
+     */
+    void recordFall(int lane)
+    {
+        falls[lane]++;
+    }
+
+    /**
+     * Add the results of another batch over the same field to these
+     *
+     * @param other statistics with the same lanes as this
+     */
+    void merge(RaceStatistics other)
+    {
+        races += other.races;
+        noWinner += other.noWinner;
+        totalTicks += other.totalTicks;
+        for(int lane=0; lane<wins.length; lane++){
+            wins[lane] += other.wins[lane];
+            falls[lane] += other.falls[lane];
+        }
+    }
+
+    public int getNumberOfLanes()
+    {
+        return this.horseNames.length;
+    }
+
+    public String getHorseName(int lane)
+    {
+        return this.horseNames[lane];
+    }
+
+    public long getRaces()
+    {
+        return this.races;
+    }
+
+    public long getWins(int lane)
+    {
+        return this.wins[lane];
+    }
+
+    public long getFalls(int lane)
+    {
+        return this.falls[lane];
+    }
+
+    public long getNoWinnerCount()
+    {
+        return this.noWinner;
+    }
+
+    /**
+     * @return the fraction of races won by the horse in the given lane
+     */
+    public double getWinRate(int lane)
+    {
+        return races == 0 ? 0.0 : (double) wins[lane] / races;
+    }
+
+    /**
+     * @return the average number of ticks a race took to finish
+     */
+    public double getMeanTicks()
+    {
+        return races == 0 ? 0.0 : (double) totalTicks / races;
+    }
+
+    public String toString()
+    {
+        StringBuilder summary = new StringBuilder();
+        summary.append(races).append(" races, mean ticks to finish: ")
+               .append(String.format("%.2f", getMeanTicks())).append('\n');
+        for(int lane=0; lane<horseNames.length; lane++){
+            summary.append(horseNames[lane])
+                   .append(": wins ").append(wins[lane])
+                   .append(" (").append(String.format("%.4f", getWinRate(lane))).append(")")
+                   .append(", falls ").append(falls[lane]).append('\n');
+        }
+        summary.append("No winner: ").append(noWinner);
+        return summary.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package part1;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Supplies the random numbers that decide whether the horses move and fall.
+ *
+ * Every race is started with its number, and every lane draws from its own
+ * stream within that race. A seeded source gives the same numbers for the same
+ * race and lane whichever thread asks for them and in whatever order the races
+ * are run, so a batch split across workers replays exactly as a serial one.
+ */
+public interface RandomSource
+{
+    /**
+     * Restart every lane's stream at the beginning of the given race
+     *
+     * @param race the number of the race within its batch
+     */
+    void startRace(long race);
+
+    /**
+     * @param lane the lane of the horse drawing the number
+     * @return the next number in [0, 1) from that lane's stream
+     */
+    double nextDouble(int lane);
+
+    /**
+     * @return a source whose streams are all derived from the given seed
+     */
+    static RandomSource seeded(long seed)
+    {
+        return new SeededRandomSource(seed);
+    }
+
+    /**
+     * @return a seeded source with a seed nobody knows
+     */
+    static RandomSource unseeded()
+    {
+        return seeded(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Wrap any generator as a source. All the lanes share the generator's
+     * single stream, so races are only reproducible if they are run in the
+     * same order on one thread.
+     */
+    static RandomSource of(RandomGenerator generator)
+    {
+        return new RandomSource()
+        {
+            public void startRace(long race)
+            {
+            }
+
+            public double nextDouble(int lane)
+            {
+                return generator.nextDouble();
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package part1;
+
+/**
+ * The plain Java LockstepKernel, used whenever the Vector API is not available.
+ * The vector kernel also uses it for the races left over after the last full vector.
+ */
+public class ScalarLockstepKernel implements LockstepKernel
+{
+    public void playLane(int lane, int raceLength, int slots, long [] randomState, long [] distance,
+                         double [] confidence, double [] fallChance, boolean [] fallen,
+                         boolean [] running, long [] standing, long [] movable, long [] winner)
+    {
+        playLane(lane, raceLength, 0, slots, randomState, distance, confidence, fallChance,
+                 fallen, running, standing, movable, winner);
+    }
+
+    /**
+     * Play the lane in the races from slot from up to but not including slot to
+     */
+    public static void playLane(int lane, int raceLength, int from, int to, long [] randomState, long [] distance,
+                                double [] confidence, double [] fallChance, boolean [] fallen,
+                                boolean [] running, long [] standing, long [] movable, long [] winner)
+    {
+        for(int slot=from; slot<to; slot++){
+            if(!running[slot]){
+                continue;
+            }
+            if(!fallen[slot]){
+                long state = randomState[slot] + SeededRandomSource.GOLDEN_GAMMA;
+                double moveDraw = toDouble(SeededRandomSource.mix64(state));
+                state += SeededRandomSource.GOLDEN_GAMMA;
+                double fallDraw = toDouble(SeededRandomSource.mix64(state));
+                randomState[slot] = state;
+
+                double c = confidence[slot];
+                if(moveDraw < c){
+                    distance[slot]++;
+                }
+                if(fallDraw < fallChance[slot]){
+                    fallen[slot] = true;
+                    confidence[slot] = Math.max(0.0, c - 0.1);
+                    standing[slot]--;
+                    movable[slot]--;
+                }
+            }
+            if(distance[slot] == raceLength){
+                winner[slot] = lane;
+            }
+        }
+    }
+
+    public String getName()
+    {
+        return "scalar";
+    }
+
+    //the top 53 bits as a double in [0, 1), as SplittableRandom.nextDouble does
+    private static double toDouble(long bits)
+    {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+}
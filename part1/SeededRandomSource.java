@@ -0,0 +1,81 @@
+package part1;
+import java.util.Arrays;
+
+/**
+ * The default RandomSource. Each lane of each race gets the stream that
+ * new SplittableRandom(streamSeed(seed, race, lane)) would produce, but the
+ * SplitMix64 state is kept in a reusable array, so starting a race allocates nothing.
+ *
+ * A source is not thread safe; give every worker its own source with the same seed.
+ */
+public final class SeededRandomSource implements RandomSource
+{
+    //the increment SplittableRandom uses for its default stream
+    public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long race;
+    private long [] laneState;
+
+    /**
+     * Constructor for objects of class SeededRandomSource
+     * The source starts positioned at race 0.
+     */
+    public SeededRandomSource(long seed)
+    {
+        this.seed = seed;
+        this.laneState = new long[0];
+        startRace(0);
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void startRace(long race)
+    {
+        this.race = race;
+        for(int lane=0; lane<laneState.length; lane++){
+            laneState[lane] = streamSeed(seed, race, lane);
+        }
+    }
+
+    public double nextDouble(int lane)
+    {
+        if(lane >= laneState.length){
+            growTo(lane + 1);
+        }
+        long state = laneState[lane] + GOLDEN_GAMMA;
+        laneState[lane] = state;
+        return (mix64(state) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The seed of the stream a lane draws from in a race. Races and lanes
+     * are mixed in separately so that neighbouring streams are unrelated.
+     */
+    public static long streamSeed(long seed, long race, int lane)
+    {
+        long raceSeed = mix64(seed + (race + 1) * GOLDEN_GAMMA);
+        return mix64(raceSeed + (lane + 1) * GOLDEN_GAMMA);
+    }
+
+    //make room for more lanes, starting the new ones at the current race
+    private void growTo(int lanes)
+    {
+        int oldLanes = laneState.length;
+        laneState = Arrays.copyOf(laneState, Math.max(lanes, oldLanes * 2));
+        for(int lane=oldLanes; lane<laneState.length; lane++){
+            laneState[lane] = streamSeed(seed, race, lane);
+        }
+    }
+
+    //the SplitMix64 finaliser used by SplittableRandom
+    static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
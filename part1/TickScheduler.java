@@ -0,0 +1,149 @@
+package part1;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a race at a fixed tick rate.
+ *
+ * Instead of sleeping for a whole tick after the work for a tick is done, which
+ * lets the time taken by the work pile up, every tick has a deadline a fixed
+ * period after the one before, and the scheduler parks until that deadline.
+ * If a tick is so late that the next deadline has already passed, the missed
+ * ticks are skipped rather than run back to back, so the cadence stays steady.
+ *
+ * The time scale divides the period: 10 runs ten times as fast, and UNLIMITED
+ * does not wait at all, so a replay runs through the same code as a live race.
+ * The time scale can be changed from any thread while a race is running and
+ * takes effect from the next tick.
+ */
+public class TickScheduler
+{
+    public static final double UNLIMITED = Double.POSITIVE_INFINITY;
+
+    private long tickNanos;
+    private volatile double timeScale = 1.0;
+
+    private long nextTickAt;
+    private boolean started;
+
+    private long ticks;
+    private long lastLatenessNanos;
+    private long maxLatenessNanos;
+    private long totalLatenessNanos;
+
+    /**
+     * Constructor for objects of class TickScheduler
+     *
+     * @param tickMillis how long a tick lasts at normal speed, or 0 to never wait
+     */
+    public TickScheduler(long tickMillis)
+    {
+        if(tickMillis < 0){
+            throw new IllegalArgumentException("A tick cannot last less than no time");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    }
+
+    /**
+     * @param timeScale how many times faster than normal to run, or UNLIMITED to never wait
+     */
+    public void setTimeScale(double timeScale)
+    {
+        if(!(timeScale > 0)){
+            throw new IllegalArgumentException("The time scale must be more than 0");
+        }
+        this.timeScale = timeScale;
+    }
+
+    public double getTimeScale()
+    {
+        return timeScale;
+    }
+
+    /**
+     * Make now the start of the first tick and forget the lateness of any earlier race
+     */
+    public void start()
+    {
+        nextTickAt = System.nanoTime();
+        started = true;
+        ticks = 0;
+        lastLatenessNanos = 0;
+        maxLatenessNanos = 0;
+        totalLatenessNanos = 0;
+    }
+
+    /**
+     * Wait until it is time for the next tick
+     *
+     * @return how late the tick started, in nanoseconds
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public long awaitNextTick() throws InterruptedException
+    {
+        if(!started){
+            start();
+        }
+
+        long period = currentPeriodNanos();
+        long lateness = 0;
+        if(period == 0){
+            nextTickAt = System.nanoTime();
+        }
+        else{
+            nextTickAt += period;
+            long wait;
+            while ((wait = nextTickAt - System.nanoTime()) > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+                if(Thread.interrupted()){
+                    throw new InterruptedException();
+                }
+            }
+            long now = System.nanoTime();
+            lateness = now - nextTickAt;
+            if(lateness >= period){
+                //too far behind to catch up, so start counting again from now
+                nextTickAt = now;
+            }
+        }
+
+        ticks++;
+        lastLatenessNanos = lateness;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        totalLatenessNanos += lateness;
+        return lateness;
+    }
+
+    /**
+     * @return how many ticks have been waited for since the scheduler was started
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    public long getLastLatenessNanos()
+    {
+        return lastLatenessNanos;
+    }
+
+    public long getMaxLatenessNanos()
+    {
+        return maxLatenessNanos;
+    }
+
+    public double getMeanLatenessNanos()
+    {
+        return ticks == 0 ? 0 : (double) totalLatenessNanos / ticks;
+    }
+
+    private long currentPeriodNanos()
+    {
+        double scale = timeScale;
+        if(tickNanos == 0 || scale == UNLIMITED){
+            return 0;
+        }
+        return Math.max(1, Math.round(tickNanos / scale));
+    }
+}
@@ -0,0 +1,113 @@
+package part1;
+
+/**
+ * The result of a Monte Carlo run of WinProbabilityEstimator:
+ * the estimated chance of each lane winning and of the race having
+ * no winner, with 95% confidence intervals and the simulation speed.
+ */
+public class WinProbabilityEstimate
+{
+    //z value for a two-sided 95% interval
+    private static final double Z_95 = 1.959963984540054;
+
+    private RaceStatistics statistics;
+    private long elapsedNanos;
+
+    /**
+     * Constructor for objects of class WinProbabilityEstimate
+     *
+     * @param statistics the merged results of every simulated race
+     * @param elapsedNanos how long the simulation took
+     */
+    public WinProbabilityEstimate(RaceStatistics statistics, long elapsedNanos)
+    {
+        this.statistics = statistics;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public RaceStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public double getWinProbability(int lane)
+    {
+        return statistics.getWinRate(lane);
+    }
+
+    public double getWinLowerBound(int lane)
+    {
+        return wilsonBound(statistics.getWins(lane), -1);
+    }
+
+    public double getWinUpperBound(int lane)
+    {
+        return wilsonBound(statistics.getWins(lane), 1);
+    }
+
+    /**
+     * @return the estimated chance that no horse finishes, either because every
+     *         horse fell or because the ones left standing have no confidence and never finish
+     */
+    public double getNoWinnerProbability()
+    {
+        long races = statistics.getRaces();
+        return races == 0 ? 0.0 : (double) statistics.getNoWinnerCount() / races;
+    }
+
+    public double getNoWinnerLowerBound()
+    {
+        return wilsonBound(statistics.getNoWinnerCount(), -1);
+    }
+
+    public double getNoWinnerUpperBound()
+    {
+        return wilsonBound(statistics.getNoWinnerCount(), 1);
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    public double getRacesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0.0 : statistics.getRaces() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * One end of the Wilson score interval for a proportion.
+     * Unlike the normal approximation it stays inside [0, 1]
+     * and behaves for outsiders that almost never win.
+     *
+     * @param successes the number of races the event happened in
+     * @param side -1 for the lower bound, 1 for the upper bound
+     */
+    private double wilsonBound(long successes, int side)
+    {
+        long races = statistics.getRaces();
+        if(races == 0){
+            return side < 0 ? 0.0 : 1.0;
+        }
+        double p = (double) successes / races;
+        double z2 = Z_95 * Z_95;
+        double centre = p + z2 / (2.0 * races);
+        double spread = Z_95 * Math.sqrt(p * (1 - p) / races + z2 / (4.0 * races * races));
+        double bound = (centre + side * spread) / (1 + z2 / races);
+        return Math.min(1.0, Math.max(0.0, bound));
+    }
+
+    public String toString()
+    {
+        StringBuilder summary = new StringBuilder();
+        for(int lane=0; lane<statistics.getNumberOfLanes(); lane++){
+            summary.append(String.format("%s: %.4f [%.4f, %.4f]%n", statistics.getHorseName(lane),
+                getWinProbability(lane), getWinLowerBound(lane), getWinUpperBound(lane)));
+        }
+        summary.append(String.format("No winner: %.4f [%.4f, %.4f]%n",
+            getNoWinnerProbability(), getNoWinnerLowerBound(), getNoWinnerUpperBound()));
+        summary.append(String.format("%d races in %.1f ms (%.0f races/sec)",
+            statistics.getRaces(), elapsedNanos / 1e6, getRacesPerSecond()));
+        return summary.toString();
+    }
+}
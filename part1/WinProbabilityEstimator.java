@@ -0,0 +1,67 @@
+package part1;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates each horse's chance of winning a race by simulating
+ * the race many times over all the available cores.
+ *
+ * The races are cut into fixed-size chunks and every chunk runs on its own
+ * LockstepRaceEngine, which plays many races side by side with the Vector API
+ * where it can. Every race draws from the streams for its own number, so for
+ * a given seed the result is bit for bit the same as running all the races
+ * serially on an ArrayRaceEngine, however many cores there are.
+ */
+public class WinProbabilityEstimator
+{
+    //races simulated by one worker before its results are merged
+    private static final int RACES_PER_CHUNK = 20_000;
+
+    /**
+     * Estimate the win probabilities of a field using a random seed
+     *
+     * @param field the horses in lane order
+     * @param raceLength the length of the race
+     * @param numberOfRaces how many races to simulate
+     */
+    public static WinProbabilityEstimate estimate(List<Horse> field, int raceLength, long numberOfRaces)
+    {
+        return estimate(field, raceLength, numberOfRaces, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Estimate the win probabilities of a field
+     *
+     * @param field the horses in lane order
+     * @param raceLength the length of the race
+     * @param numberOfRaces how many races to simulate
+     * @param seed the seed every race's random streams are derived from
+     */
+    public static WinProbabilityEstimate estimate(List<Horse> field, int raceLength, long numberOfRaces, long seed)
+    {
+        Horse [] horses = field.toArray(new Horse[0]);
+        int chunks = (int) ((numberOfRaces + RACES_PER_CHUNK - 1) / RACES_PER_CHUNK);
+
+        long start = System.nanoTime();
+        RaceStatistics statistics = IntStream.range(0, chunks)
+            .parallel()
+            .mapToObj(chunk -> {
+                long firstRace = (long) chunk * RACES_PER_CHUNK;
+                long races = Math.min(RACES_PER_CHUNK, numberOfRaces - firstRace);
+                LockstepRaceEngine engine = new LockstepRaceEngine(raceLength, horses, seed);
+                return engine.runRaces(firstRace, races);
+            })
+            .reduce(WinProbabilityEstimator::combine)
+            .orElseGet(() -> new LockstepRaceEngine(raceLength, horses, seed).runRaces(0, 0));
+        long elapsed = System.nanoTime() - start;
+
+        return new WinProbabilityEstimate(statistics, elapsed);
+    }
+
+    private static RaceStatistics combine(RaceStatistics left, RaceStatistics right)
+    {
+        left.merge(right);
+        return left;
+    }
+}
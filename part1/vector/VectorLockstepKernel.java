@@ -0,0 +1,96 @@
+package part1.vector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import part1.LockstepKernel;
+import part1.ScalarLockstepKernel;
+import part1.SeededRandomSource;
+
+/**
+ * A LockstepKernel that plays a lane in as many races at once as fit in the
+ * machine's widest vector. The random numbers for all those races are made
+ * together with 64-bit vector arithmetic, and the move and fall comparisons
+ * become vector masks, so the races are never branched on one at a time.
+ *
+ * Needs the incubating jdk.incubator.vector module, both to compile and to run:
+ *
+ *     javac --add-modules jdk.incubator.vector part1/*.java part1/vector/*.java
+ *     java --add-modules jdk.incubator.vector ...
+ *
+ * LockstepRaceEngine falls back to ScalarLockstepKernel when it cannot load this class.
+ */
+public class VectorLockstepKernel implements LockstepKernel
+{
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    //the same number of lanes as DOUBLES, so masks can be cast between them
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, DOUBLES.vectorShape());
+
+    private static final long GAMMA = SeededRandomSource.GOLDEN_GAMMA;
+
+    public void playLane(int lane, int raceLength, int slots, long [] randomState, long [] distance,
+                         double [] confidence, double [] fallChance, boolean [] fallen,
+                         boolean [] running, long [] standing, long [] movable, long [] winner)
+    {
+        int bound = DOUBLES.loopBound(slots);
+        for(int slot=0; slot<bound; slot+=DOUBLES.length()){
+            VectorMask<Double> run = VectorMask.fromArray(DOUBLES, running, slot);
+            if(!run.anyTrue()){
+                continue;
+            }
+            VectorMask<Double> down = VectorMask.fromArray(DOUBLES, fallen, slot);
+            VectorMask<Double> active = run.andNot(down);
+            LongVector travelled = LongVector.fromArray(LONGS, distance, slot);
+
+            if(active.anyTrue()){
+                VectorMask<Long> activeLongs = active.cast(LONGS);
+                LongVector state = LongVector.fromArray(LONGS, randomState, slot);
+                LongVector moveState = state.add(GAMMA);
+                LongVector fallState = moveState.add(GAMMA);
+                state.blend(fallState, activeLongs).intoArray(randomState, slot);
+
+                DoubleVector c = DoubleVector.fromArray(DOUBLES, confidence, slot);
+                VectorMask<Double> moves = toDouble(mix64(moveState)).lt(c).and(active);
+                travelled = travelled.add(1, moves.cast(LONGS));
+                travelled.intoArray(distance, slot);
+
+                DoubleVector fallDraw = toDouble(mix64(fallState));
+                VectorMask<Double> falls = fallDraw.lt(DoubleVector.fromArray(DOUBLES, fallChance, slot)).and(active);
+                if(falls.anyTrue()){
+                    VectorMask<Long> fallsLongs = falls.cast(LONGS);
+                    down.or(falls).intoArray(fallen, slot);
+                    c.blend(c.sub(0.1).max(0.0), falls).intoArray(confidence, slot);
+                    LongVector.fromArray(LONGS, standing, slot).sub(1, fallsLongs).intoArray(standing, slot);
+                    LongVector.fromArray(LONGS, movable, slot).sub(1, fallsLongs).intoArray(movable, slot);
+                }
+            }
+
+            VectorMask<Long> finished = travelled.eq(raceLength).and(run.cast(LONGS));
+            if(finished.anyTrue()){
+                LongVector.fromArray(LONGS, winner, slot).blend(lane, finished).intoArray(winner, slot);
+            }
+        }
+        ScalarLockstepKernel.playLane(lane, raceLength, bound, slots, randomState, distance, confidence,
+                                      fallChance, fallen, running, standing, movable, winner);
+    }
+
+    public String getName()
+    {
+        return "vector " + DOUBLES.length() + "x64";
+    }
+
+    //the SplitMix64 finaliser, as SeededRandomSource uses
+    private static LongVector mix64(LongVector z)
+    {
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xbf58476d1ce4e5b9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94d049bb133111ebL);
+        return z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+    }
+
+    //the top 53 bits as a double in [0, 1)
+    private static DoubleVector toDouble(LongVector bits)
+    {
+        return ((DoubleVector) bits.lanewise(VectorOperators.LSHR, 11).convert(VectorOperators.L2D, 0)).mul(0x1.0p-53);
+    }
+}
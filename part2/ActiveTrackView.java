@@ -0,0 +1,129 @@
+package part2;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Draws the track itself at a fixed frame rate, instead of waiting for Swing
+ * to repaint it.
+ *
+ * A thread of its own draws a frame into the canvas's buffer strategy as often
+ * as the frame rate asks, whether or not a tick has been played. Between ticks
+ * the steeds are drawn part of the way from where they were in the snapshot
+ * before to where they are in the latest one, so they glide along the track
+ * rather than jumping a step every tick. How far along they are is worked out
+ * from how long the latest snapshot has been seen against how long the one
+ * before it lasted, so it keeps up with any speed the competition runs at.
+ */
+class ActiveTrackView extends Canvas {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final CompetitionEngine engine;
+    private final TrackRenderer trackRenderer = new TrackRenderer();
+    private final long frameNanos;
+    private Thread renderThread;
+
+    // only touched by the render thread
+    private CompetitionSnapshot previous;
+    private CompetitionSnapshot current;
+    private long currentSeenAt;
+    private long tickNanos;
+
+    /**
+     * Constructor for the ActiveTrackView class.
+     *
+     * @param engine          The engine whose snapshots are drawn.
+     * @param framesPerSecond How many frames to draw every second.
+     */
+    ActiveTrackView(CompetitionEngine engine, int framesPerSecond) {
+        this.engine = engine;
+        this.frameNanos = NANOS_PER_SECOND / framesPerSecond;
+        setIgnoreRepaint(true);
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Starts drawing frames. The canvas must be showing.
+     */
+    void start() {
+        if (renderThread != null) {
+            return;
+        }
+        createBufferStrategy(2);
+        renderThread = new Thread(this::renderLoop, "Track renderer");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    /**
+     * Stops drawing frames and waits for the last one to finish.
+     */
+    void stop() {
+        if (renderThread == null) {
+            return;
+        }
+        renderThread.interrupt();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        renderThread = null;
+    }
+
+    /**
+     * Draws a frame, then sleeps until the next one is due, until interrupted.
+     */
+    private void renderLoop() {
+        BufferStrategy strategy = getBufferStrategy();
+        long nextFrame = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            renderFrame(strategy, System.nanoTime());
+
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait <= 0) {
+                // running behind, so start counting again from now rather than catching up
+                nextFrame = System.nanoTime();
+                continue;
+            }
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Draws one frame, drawing it again if the buffer's contents are lost while it is drawn.
+     *
+     * @param strategy The buffer strategy to draw into.
+     * @param now      The time of the frame, from System.nanoTime.
+     */
+    private void renderFrame(BufferStrategy strategy, long now) {
+        CompetitionSnapshot latest = engine.getLatestSnapshot();
+        if (latest == null) {
+            return;
+        }
+        if (latest != current) {
+            tickNanos = current == null ? 0 : now - currentSeenAt;
+            previous = current == null ? latest : current;
+            current = latest;
+            currentSeenAt = now;
+        }
+        double progress = tickNanos <= 0 ? 1 : Math.min(1, (double) (now - currentSeenAt) / tickNanos);
+
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                g.setColor(getBackground());
+                g.fillRect(0, 0, getWidth(), getHeight());
+                trackRenderer.render(g, previous, current, progress, getWidth(), getHeight());
+                g.dispose();
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
@@ -0,0 +1,409 @@
+package part2;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The bars of a bar graph, one for each series id, in the order the ids were first given.
+ *
+ * Setting a bar for an id already in the model replaces it in place, so the
+ * model only ever holds one bar per series however often it is updated.
+ * Listeners are told whenever a bar is added, changed or removed, and not
+ * when a bar is set to what it already was.
+ *
+ * The bars are kept in arrays by position, under a segment tree holding the
+ * smallest, the largest and the total of the values of every power-of-two run
+ * of bars. Setting a bar updates the tree in time logarithmic in the number of
+ * bars, and so does finding the smallest, largest or mean value of any run of
+ * bars, so a graph of a hundred thousand bars can be summarised a pixel column
+ * at a time without looking at every bar. The largest bars can be found in
+ * order the same way.
+ */
+public final class BarGraphModel {
+    private final EventListenerList listeners = new EventListenerList();
+    private final ChangeEvent changeEvent = new ChangeEvent(this);
+
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private int[] seriesIds = new int[8];
+    private Color[] colors = new Color[8];
+    private double[] values = new double[8];
+    private String[] labels = new String[8];
+    private int size;
+
+    // node n covers nodes 2n and 2n + 1, and leaf treeSize + i is bar i; -1 is no bar
+    private int treeSize = 8;
+    private int[] minPositions = new int[16];
+    private int[] maxPositions = new int[16];
+    private double[] sums = new double[16];
+
+    /**
+     * A bar of the graph.
+     *
+     * @param color The color of the bar.
+     * @param value The value the bar shows.
+     * @param label The label under the bar.
+     */
+    public record Bar(Color color, double value, String label) {
+    }
+
+    /**
+     * Constructor for the BarGraphModel class.
+     */
+    public BarGraphModel() {
+        Arrays.fill(minPositions, -1);
+        Arrays.fill(maxPositions, -1);
+    }
+
+    /**
+     * Sets the bar of a series, adding it after the others if the series has no bar yet.
+     *
+     * @param seriesId The id of the series.
+     * @param color    The color of the bar.
+     * @param value    The value the bar shows.
+     * @param label    The label under the bar.
+     */
+    public void setBar(int seriesId, Color color, double value, String label) {
+        Integer position = positions.get(seriesId);
+        boolean added = position == null;
+        if (added) {
+            if (size == treeSize) {
+                resize(treeSize * 2);
+            }
+            position = size++;
+            positions.put(seriesId, position);
+            seriesIds[position] = seriesId;
+        } else if (color.equals(colors[position]) && values[position] == value && label.equals(labels[position])) {
+            return;
+        }
+        colors[position] = color;
+        labels[position] = label;
+        if (added || values[position] != value) {
+            values[position] = value;
+            updateTree(position);
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Removes the bars of every series not in a set. The bars left keep their order.
+     *
+     * @param seriesIds The ids of the series to keep.
+     */
+    public void retainSeries(Set<Integer> seriesIds) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (seriesIds.contains(this.seriesIds[i])) {
+                moveBar(i, kept++);
+            } else {
+                positions.remove(this.seriesIds[i]);
+            }
+        }
+        if (kept != size) {
+            truncate(kept);
+            fireStateChanged();
+        }
+    }
+
+    /**
+     * Removes every bar.
+     */
+    public void clear() {
+        if (size != 0) {
+            positions.clear();
+            truncate(0);
+            fireStateChanged();
+        }
+    }
+
+    /**
+     * Returns the bars in order.
+     *
+     * @return A copy of the bars.
+     */
+    public List<Bar> getBars() {
+        List<Bar> bars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bars.add(new Bar(colors[i], values[i], labels[i]));
+        }
+        return Collections.unmodifiableList(bars);
+    }
+
+    /**
+     * Returns the number of bars.
+     *
+     * @return The number of bars.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the color of a bar.
+     *
+     * @param position The position of the bar, from 0.
+     * @return The color of the bar.
+     */
+    public Color getColor(int position) {
+        return colors[position];
+    }
+
+    /**
+     * Returns the value of a bar.
+     *
+     * @param position The position of the bar, from 0.
+     * @return The value of the bar.
+     */
+    public double getValue(int position) {
+        return values[position];
+    }
+
+    /**
+     * Returns the label of a bar.
+     *
+     * @param position The position of the bar, from 0.
+     * @return The label of the bar.
+     */
+    public String getLabel(int position) {
+        return labels[position];
+    }
+
+    /**
+     * Finds the bar with the smallest value in a run of bars.
+     *
+     * @param from The position of the first bar in the run.
+     * @param to   The position just past the last bar in the run.
+     * @return The position of the smallest bar, or -1 if the run is empty.
+     */
+    public int findMin(int from, int to) {
+        int found = -1;
+        for (int lo = from + treeSize, hi = to + treeSize; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                found = smaller(found, minPositions[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                found = smaller(found, minPositions[--hi]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the bar with the largest value in a run of bars.
+     *
+     * @param from The position of the first bar in the run.
+     * @param to   The position just past the last bar in the run.
+     * @return The position of the largest bar, or -1 if the run is empty.
+     */
+    public int findMax(int from, int to) {
+        int found = -1;
+        for (int lo = from + treeSize, hi = to + treeSize; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                found = larger(found, maxPositions[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                found = larger(found, maxPositions[--hi]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds up the values of a run of bars.
+     *
+     * @param from The position of the first bar in the run.
+     * @param to   The position just past the last bar in the run.
+     * @return The total of the values.
+     */
+    public double sum(int from, int to) {
+        double total = 0;
+        for (int lo = from + treeSize, hi = to + treeSize; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                total += sums[lo++];
+            }
+            if ((hi & 1) == 1) {
+                total += sums[--hi];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the bars with the largest values, largest first, without looking at every bar.
+     *
+     * @param count     How many bars to find.
+     * @param positions The array to put the positions of the bars in, at least count long.
+     * @return How many bars were found, which is fewer than count only if there are fewer bars.
+     */
+    public int findLargest(int count, int[] positions) {
+        // the tree nodes still to look inside, largest first by the largest bar under each
+        PriorityQueue<Integer> nodes = new PriorityQueue<>(
+                (a, b) -> Double.compare(values[maxPositions[b]], values[maxPositions[a]]));
+        if (size > 0) {
+            nodes.add(1);
+        }
+        int found = 0;
+        while (found < count && !nodes.isEmpty()) {
+            int node = nodes.poll();
+            if (node >= treeSize) {
+                positions[found++] = node - treeSize;
+                continue;
+            }
+            for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                if (maxPositions[child] >= 0) {
+                    nodes.add(child);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds a listener told whenever the bars change.
+     *
+     * @param listener The listener.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(ChangeListener.class, listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener.
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(ChangeListener.class, listener);
+    }
+
+    /**
+     * Tells every listener the bars have changed.
+     */
+    private void fireStateChanged() {
+        for (ChangeListener listener : listeners.getListeners(ChangeListener.class)) {
+            listener.stateChanged(changeEvent);
+        }
+    }
+
+    /**
+     * Moves a bar to an earlier position, over whatever bar was there.
+     *
+     * @param from The position of the bar.
+     * @param to   The position to move it to.
+     */
+    private void moveBar(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        seriesIds[to] = seriesIds[from];
+        colors[to] = colors[from];
+        values[to] = values[from];
+        labels[to] = labels[from];
+        positions.put(seriesIds[to], to);
+        updateTree(to);
+    }
+
+    /**
+     * Drops every bar from a position on, once their series have been forgotten.
+     *
+     * @param newSize The number of bars to keep.
+     */
+    private void truncate(int newSize) {
+        for (int i = newSize; i < size; i++) {
+            colors[i] = null;
+            labels[i] = null;
+            values[i] = 0;
+        }
+        int oldSize = size;
+        size = newSize;
+        for (int i = newSize; i < oldSize; i++) {
+            updateTree(i);
+        }
+    }
+
+    /**
+     * Makes room for more bars, building the tree again.
+     *
+     * @param capacity The number of bars to make room for, a power of two.
+     */
+    private void resize(int capacity) {
+        seriesIds = Arrays.copyOf(seriesIds, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        values = Arrays.copyOf(values, capacity);
+        labels = Arrays.copyOf(labels, capacity);
+        treeSize = capacity;
+        minPositions = new int[2 * capacity];
+        maxPositions = new int[2 * capacity];
+        sums = new double[2 * capacity];
+        for (int i = 0; i < capacity; i++) {
+            int leaf = capacity + i;
+            minPositions[leaf] = maxPositions[leaf] = i < size ? i : -1;
+            sums[leaf] = i < size ? values[i] : 0;
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            combine(node);
+        }
+    }
+
+    /**
+     * Updates the tree after the bar at a position has changed, been added or been removed.
+     *
+     * @param position The position of the bar.
+     */
+    private void updateTree(int position) {
+        int leaf = treeSize + position;
+        minPositions[leaf] = maxPositions[leaf] = position < size ? position : -1;
+        sums[leaf] = position < size ? values[position] : 0;
+        for (int node = leaf >> 1; node > 0; node >>= 1) {
+            combine(node);
+        }
+    }
+
+    /**
+     * Works out a tree node from its two children.
+     *
+     * @param node The node.
+     */
+    private void combine(int node) {
+        minPositions[node] = smaller(minPositions[2 * node], minPositions[2 * node + 1]);
+        maxPositions[node] = larger(maxPositions[2 * node], maxPositions[2 * node + 1]);
+        sums[node] = sums[2 * node] + sums[2 * node + 1];
+    }
+
+    /**
+     * Returns whichever of two bars has the smaller value.
+     *
+     * @param a The position of a bar, or -1.
+     * @param b The position of another bar, or -1.
+     * @return The position of the smaller bar, or -1 if neither is a bar.
+     */
+    private int smaller(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 || values[a] <= values[b] ? a : b;
+    }
+
+    /**
+     * Returns whichever of two bars has the larger value.
+     *
+     * @param a The position of a bar, or -1.
+     * @param b The position of another bar, or -1.
+     * @return The position of the larger bar, or -1 if neither is a bar.
+     */
+    private int larger(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 || values[a] >= values[b] ? a : b;
+    }
+}
@@ -0,0 +1,86 @@
+package part2;
+
+import part1.RandomSource;
+
+
+/**
+ * Holds everything a competition needs from one to the next, so that running
+ * competitions back to back allocates nothing once the field is set.
+ *
+ * The steeds are read from the registry's lanes, and the random numbers come from a
+ * seeded source that restarts its streams in place for each competition.
+ * Every steed has its own stream, and the apples have the stream after the last steed.
+ */
+class CompetitionContext {
+    private final RandomSource random;
+    private long competitionNumber;
+    private SteedRegistry field = new SteedRegistry();
+
+    /**
+     * Constructor for the CompetitionContext class.
+     *
+     * @param seed The seed every competition's random streams are derived from.
+     */
+    CompetitionContext(long seed) {
+        random = RandomSource.seeded(seed);
+    }
+
+    /**
+     * Sets the steeds taking part.
+     *
+     * @param field The registry whose lanes hold the steeds taking part.
+     */
+    void setField(SteedRegistry field) {
+        this.field = field;
+    }
+
+    /**
+     * Resets every steed and restarts the random streams for the next competition.
+     */
+    void startCompetition() {
+        for (int lane = 0; lane < field.getNumberOfLanes(); lane++) {
+            UpgradedSteed steed = field.getSteedInLane(lane);
+            steed.resetForNewCompetition();
+            steed.computeVictoryOdds();
+        }
+        random.startRace(competitionNumber++);
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return The number of lanes.
+     */
+    int getNumberOfLanes() {
+        return field.getNumberOfLanes();
+    }
+
+    /**
+     * Returns the steed in a lane.
+     *
+     * @param lane The lane.
+     * @return The steed in the lane.
+     */
+    UpgradedSteed getSteed(int lane) {
+        return field.getSteedInLane(lane);
+    }
+
+    /**
+     * Returns the next random number from a steed's stream.
+     *
+     * @param lane The lane of the steed.
+     * @return A number in [0, 1).
+     */
+    double nextDouble(int lane) {
+        return random.nextDouble(lane);
+    }
+
+    /**
+     * Returns the next random number from the apples' stream.
+     *
+     * @return A number in [0, 1).
+     */
+    double nextAppleDouble() {
+        return random.nextDouble(field.getNumberOfLanes());
+    }
+}
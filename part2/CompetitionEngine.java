@@ -0,0 +1,353 @@
+package part2;
+
+import java.util.Arrays;
+
+/**
+ * Runs competitions in track units, with no window or drawing involved.
+ *
+ * The engine owns the steeds taking part, the apples on the track, stumbling
+ * and finding the champion. A steed's position is its track progress and an
+ * apple is a lane and a distance along it, so a competition plays out the same
+ * whatever size it is drawn at, or if it is never drawn at all. The arena only
+ * observes the engine to draw it.
+ *
+ * The apples are kept lane by lane, each lane's sorted by how far along it they
+ * are, and every lane has a cursor at the next apple in it still to be eaten.
+ * A steed only ever needs to look at the apple under its lane's cursor, so
+ * checking for an apple takes the same time however many steeds and apples there are.
+ *
+ * The engine must only be changed by one thread at a time, normally the one
+ * running the competition. Other threads see it through the snapshots it
+ * publishes: publishSnapshot
+ * takes a picture of the competition and puts it in a volatile field, and
+ * getLatestSnapshot reads the newest one without locking.
+ */
+public class CompetitionEngine {
+    static final int DEFAULT_APPLES_PER_COMPETITION = 2;
+    static final double STUMBLE_CHANCE = 0.02;
+    // apples are not put in the last stretch before the finish
+    static final int APPLE_FREE_STRETCH = 50;
+
+    private final CompetitionContext context;
+    private int trackLength = 500;
+    // the length the competition under way is run over, copied from trackLength when it starts
+    private int competitionLength = trackLength;
+    private long ticks;
+
+    // the apples of lane l are applePositions[laneStarts[l]] up to applePositions[laneStarts[l + 1]],
+    // in order along the lane, and the ones before nextApples[l] have been eaten
+    private int applesPerCompetition = DEFAULT_APPLES_PER_COMPETITION;
+    private int[] appleLanes = new int[DEFAULT_APPLES_PER_COMPETITION];
+    private int[] applePositions = new int[DEFAULT_APPLES_PER_COMPETITION];
+    private int[] drawnPositions = new int[DEFAULT_APPLES_PER_COMPETITION];
+    private int[] laneStarts = new int[1];
+    private int[] nextApples = new int[0];
+    private int apples;
+
+    private volatile CompetitionSnapshot latestSnapshot;
+
+    /**
+     * Constructor for the CompetitionEngine class.
+     *
+     * @param seed The seed every competition's random streams are derived from.
+     */
+    public CompetitionEngine(long seed) {
+        context = new CompetitionContext(seed);
+    }
+
+    /**
+     * Sets the steeds taking part, which must be set again whenever the field changes.
+     * The track is left with no apples until the next competition.
+     *
+     * @param field The registry whose lanes hold the steeds taking part.
+     */
+    void setField(SteedRegistry field) {
+        context.setField(field);
+        clearApples();
+    }
+
+    /**
+     * Sets the track length, which takes effect from the next competition.
+     *
+     * @param trackLength The length of the track in track units.
+     */
+    public void setTrackLength(int trackLength) {
+        this.trackLength = trackLength;
+    }
+
+    /**
+     * Returns the length of the track the competition under way is run over,
+     * which a call to setTrackLength during it does not change.
+     *
+     * @return The length of the track in track units.
+     */
+    public int getTrackLength() {
+        return competitionLength;
+    }
+
+    /**
+     * Sets how many apples are put out, which takes effect from the next competition.
+     *
+     * @param applesPerCompetition The number of apples put out at the start of each competition.
+     */
+    public void setApplesPerCompetition(int applesPerCompetition) {
+        if (applesPerCompetition < 0) {
+            throw new IllegalArgumentException("The number of apples cannot be negative");
+        }
+        if (applesPerCompetition != this.applesPerCompetition) {
+            appleLanes = new int[applesPerCompetition];
+            applePositions = new int[applesPerCompetition];
+            drawnPositions = new int[applesPerCompetition];
+            this.applesPerCompetition = applesPerCompetition;
+        }
+    }
+
+    /**
+     * Resets the steeds, restarts the random streams and puts the apples out for the next competition.
+     */
+    public void startCompetition() {
+        context.startCompetition();
+        ticks = 0;
+        competitionLength = trackLength;
+        generateApples();
+    }
+
+    /**
+     * Advances every steed still running by one step.
+     *
+     * @return true if the competition is finished.
+     */
+    public boolean playTick() {
+        ticks++;
+        for (int lane = 0; lane < context.getNumberOfLanes(); lane++) {
+            UpgradedSteed steed = context.getSteed(lane);
+            if (!steed.hasStumbled() && !steed.isChampion()) {
+                advanceSteed(steed, lane);
+                checkSteedProgress(steed);
+                checkAppleConsumption(steed, lane);
+            }
+        }
+        return isFinished();
+    }
+
+    /**
+     * Plays the competition to the end without pausing between ticks.
+     *
+     * @return The number of ticks the competition took.
+     */
+    public long runToFinish() {
+        while (!isFinished()) {
+            playTick();
+        }
+        return ticks;
+    }
+
+    /**
+     * Takes a picture of the competition as it is now and makes it the latest snapshot.
+     * Only the thread changing the engine may call this.
+     *
+     * @return The snapshot.
+     */
+    public CompetitionSnapshot publishSnapshot() {
+        CompetitionSnapshot snapshot = new CompetitionSnapshot(this);
+        latestSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Returns the latest snapshot published, from any thread.
+     *
+     * @return The latest snapshot, or null if none has been published.
+     */
+    public CompetitionSnapshot getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+    /**
+     * Checks if the competition is finished.
+     *
+     * @return true if a steed has won or every steed has stumbled.
+     */
+    public boolean isFinished() {
+        boolean allStumbled = true;
+        for (int lane = 0; lane < context.getNumberOfLanes(); lane++) {
+            UpgradedSteed steed = context.getSteed(lane);
+            if (steed.isChampion()) {
+                return true;
+            }
+            allStumbled &= steed.hasStumbled();
+        }
+        return allStumbled;
+    }
+
+    /**
+     * Gets the champion of the competition.
+     *
+     * @return The champion steed, or null if there is no champion.
+     */
+    public UpgradedSteed getChampion() {
+        for (int lane = 0; lane < context.getNumberOfLanes(); lane++) {
+            UpgradedSteed steed = context.getSteed(lane);
+            if (steed.isChampion()) {
+                return steed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of ticks played in the current competition.
+     *
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return The number of lanes.
+     */
+    public int getNumberOfLanes() {
+        return context.getNumberOfLanes();
+    }
+
+    /**
+     * Returns the steed in a lane.
+     *
+     * @param lane The lane.
+     * @return The steed in the lane.
+     */
+    public UpgradedSteed getSteed(int lane) {
+        return context.getSteed(lane);
+    }
+
+    /**
+     * Returns the number of apples still on the track.
+     *
+     * @return The number of apples.
+     */
+    public int getNumberOfApples() {
+        return apples;
+    }
+
+    /**
+     * Returns the index of the first apple in a lane still on the track.
+     * The apples from there up to getLaneApplesEnd are in order along the lane.
+     *
+     * @param lane The lane.
+     * @return The index of the lane's next apple.
+     */
+    public int getLaneApplesStart(int lane) {
+        return nextApples[lane];
+    }
+
+    /**
+     * Returns the index just past the last apple in a lane.
+     *
+     * @param lane The lane.
+     * @return The index after the lane's last apple.
+     */
+    public int getLaneApplesEnd(int lane) {
+        return laneStarts[lane + 1];
+    }
+
+    /**
+     * Returns how far along its lane an apple is.
+     *
+     * @param apple The index of an apple.
+     * @return The position of the apple in track units.
+     */
+    public int getApplePosition(int apple) {
+        return applePositions[apple];
+    }
+
+    /**
+     * Puts the apples out, each in a random lane somewhere before the last stretch,
+     * and sorts them into their lanes.
+     */
+    private void generateApples() {
+        int lanes = context.getNumberOfLanes();
+        clearApples();
+        apples = lanes == 0 ? 0 : applesPerCompetition;
+
+        int stretch = Math.max(1, competitionLength - APPLE_FREE_STRETCH);
+        for (int i = 0; i < apples; i++) {
+            appleLanes[i] = (int) (context.nextAppleDouble() * lanes);
+            drawnPositions[i] = (int) (context.nextAppleDouble() * stretch);
+            laneStarts[appleLanes[i] + 1]++;
+        }
+
+        // counting sort by lane, then each lane's apples in order along it
+        for (int lane = 0; lane < lanes; lane++) {
+            laneStarts[lane + 1] += laneStarts[lane];
+            nextApples[lane] = laneStarts[lane];
+        }
+        for (int i = 0; i < apples; i++) {
+            applePositions[nextApples[appleLanes[i]]++] = drawnPositions[i];
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            nextApples[lane] = laneStarts[lane];
+            Arrays.sort(applePositions, laneStarts[lane], laneStarts[lane + 1]);
+        }
+    }
+
+    /**
+     * Takes every apple off the track, making room for one list of apples per lane.
+     */
+    private void clearApples() {
+        int lanes = context.getNumberOfLanes();
+        if (laneStarts.length != lanes + 1) {
+            laneStarts = new int[lanes + 1];
+            nextApples = new int[lanes];
+        }
+        Arrays.fill(laneStarts, 0);
+        Arrays.fill(nextApples, 0);
+        apples = 0;
+    }
+
+    /**
+     * Advances a steed, or makes it stumble.
+     *
+     * @param steed The steed to advance.
+     * @param lane  The lane of the steed.
+     */
+    private void advanceSteed(UpgradedSteed steed, int lane) {
+        if (context.nextDouble(lane) < STUMBLE_CHANCE) {
+            steed.stumble();
+        } else {
+            steed.gallop();
+        }
+    }
+
+    /**
+     * Lets a steed eat the next apple in its lane if it has reached it.
+     * An eaten apple gives the steed a burst of speed and is taken off the track.
+     *
+     * @param steed The steed to check.
+     * @param lane  The lane of the steed.
+     */
+    private void checkAppleConsumption(UpgradedSteed steed, int lane) {
+        int apple = nextApples[lane];
+        if (apple < laneStarts[lane + 1] && steed.getTrackProgress() >= applePositions[apple]) {
+            steed.eatApple();
+            for (int i = 0; i < 3; i++) {
+                steed.gallop();
+            }
+            nextApples[lane]++;
+            apples--;
+        }
+    }
+
+    /**
+     * Makes a steed the champion if it has reached the finish.
+     *
+     * @param steed The steed to check.
+     */
+    private void checkSteedProgress(UpgradedSteed steed) {
+        if (steed.getTrackProgress() >= competitionLength) {
+            steed.setChampion(true);
+        }
+    }
+}
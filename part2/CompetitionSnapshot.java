@@ -0,0 +1,152 @@
+package part2;
+
+/**
+ * A still picture of a competition at the end of one tick: where every steed
+ * is, which have stumbled or won, and which apples are still on the track.
+ *
+ * A snapshot never changes once it is taken, so the competition thread can hand
+ * it to the event dispatch thread to draw while the competition carries on.
+ * The steeds are kept only so their id, name, symbol and color can be read,
+ * none of which change once a steed is made.
+ */
+public final class CompetitionSnapshot {
+    private final long tick;
+    private final int trackLength;
+    private final UpgradedSteed[] steeds;
+    private final int[] progress;
+    private final boolean[] stumbled;
+    private final boolean[] champion;
+    // the apples of lane l are applePositions[laneStarts[l]] up to applePositions[laneStarts[l + 1]]
+    private final int[] laneStarts;
+    private final int[] applePositions;
+
+    /**
+     * Takes a picture of an engine as it is now.
+     *
+     * @param engine The engine.
+     */
+    CompetitionSnapshot(CompetitionEngine engine) {
+        int lanes = engine.getNumberOfLanes();
+        tick = engine.getTicks();
+        trackLength = engine.getTrackLength();
+        steeds = new UpgradedSteed[lanes];
+        progress = new int[lanes];
+        stumbled = new boolean[lanes];
+        champion = new boolean[lanes];
+        laneStarts = new int[lanes + 1];
+        applePositions = new int[engine.getNumberOfApples()];
+
+        int apple = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            UpgradedSteed steed = engine.getSteed(lane);
+            steeds[lane] = steed;
+            progress[lane] = steed.getTrackProgress();
+            stumbled[lane] = steed.hasStumbled();
+            champion[lane] = steed.isChampion();
+
+            laneStarts[lane] = apple;
+            for (int i = engine.getLaneApplesStart(lane); i < engine.getLaneApplesEnd(lane); i++) {
+                applePositions[apple++] = engine.getApplePosition(i);
+            }
+        }
+        laneStarts[lanes] = apple;
+    }
+
+    /**
+     * Returns the tick the snapshot was taken at.
+     *
+     * @return The number of ticks played in the competition.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the track length.
+     *
+     * @return The length of the track in track units.
+     */
+    public int getTrackLength() {
+        return trackLength;
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return The number of lanes.
+     */
+    public int getNumberOfLanes() {
+        return steeds.length;
+    }
+
+    /**
+     * Returns the steed in a lane, for its id, name, symbol and color only.
+     *
+     * @param lane The lane.
+     * @return The steed in the lane.
+     */
+    public UpgradedSteed getSteed(int lane) {
+        return steeds[lane];
+    }
+
+    /**
+     * Returns how far the steed in a lane had got.
+     *
+     * @param lane The lane.
+     * @return The steed's track progress.
+     */
+    public int getTrackProgress(int lane) {
+        return progress[lane];
+    }
+
+    /**
+     * Checks if the steed in a lane had stumbled.
+     *
+     * @param lane The lane.
+     * @return true if the steed had stumbled.
+     */
+    public boolean hasStumbled(int lane) {
+        return stumbled[lane];
+    }
+
+    /**
+     * Checks if the steed in a lane had won.
+     *
+     * @param lane The lane.
+     * @return true if the steed was the champion.
+     */
+    public boolean isChampion(int lane) {
+        return champion[lane];
+    }
+
+    /**
+     * Returns the index of the first apple in a lane.
+     * The apples from there up to getLaneApplesEnd are in order along the lane.
+     *
+     * @param lane The lane.
+     * @return The index of the lane's first apple.
+     */
+    public int getLaneApplesStart(int lane) {
+        return laneStarts[lane];
+    }
+
+    /**
+     * Returns the index just past the last apple in a lane.
+     *
+     * @param lane The lane.
+     * @return The index after the lane's last apple.
+     */
+    public int getLaneApplesEnd(int lane) {
+        return laneStarts[lane + 1];
+    }
+
+    /**
+     * Returns how far along its lane an apple is.
+     *
+     * @param apple The index of an apple.
+     * @return The position of the apple in track units.
+     */
+    public int getApplePosition(int apple) {
+        return applePositions[apple];
+    }
+}
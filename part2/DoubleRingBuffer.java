@@ -0,0 +1,60 @@
+package part2;
+
+/**
+ * A fixed number of doubles, oldest first, where adding one to a full buffer
+ * drops the oldest. Nothing is allocated after the buffer is made.
+ */
+class DoubleRingBuffer {
+    private final double[] values;
+    // the oldest value is values[start], and the newest values[(start + size - 1) % capacity]
+    private int start;
+    private int size;
+
+    /**
+     * Constructor for the DoubleRingBuffer class.
+     *
+     * @param capacity How many values the buffer holds.
+     */
+    DoubleRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        values = new double[capacity];
+    }
+
+    /**
+     * Adds a value after the newest, dropping the oldest if the buffer is full.
+     *
+     * @param value The value to add.
+     */
+    void add(double value) {
+        if (size < values.length) {
+            values[(start + size++) % values.length] = value;
+        } else {
+            values[start] = value;
+            start = (start + 1) % values.length;
+        }
+    }
+
+    /**
+     * Returns a value.
+     *
+     * @param index How many values after the oldest it is.
+     * @return The value.
+     */
+    double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[(start + index) % values.length];
+    }
+
+    /**
+     * Returns how many values the buffer holds now.
+     *
+     * @return The number of values.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -1,72 +1,245 @@
+package part2;
+
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
+
+/**
+ * A bar graph of a BarGraphModel, one bar per series.
+ *
+ * The graph is drawn into an image that is only drawn again when the model
+ * changes, the title or bar thickness changes, or the graph changes size.
+ * Any other repaint just copies the image.
+ *
+ * Bars are narrowed to fit, and once they would be under two pixels wide each
+ * pixel column instead summarises the bars falling in it, so a graph of any
+ * number of bars stays readable and takes about the same time to draw. Labels
+ * are left out where they would run into the one before. The graph can also
+ * show only its largest bars, largest first.
+ */
+public final class EnhancedBarGraph extends JPanel {
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    // bars thinner than this are summarised a pixel column at a time instead
+    private static final int MIN_BAR_THICKNESS = 2;
+    private static final int LABEL_GAP = 4;
+    private static final Color RANGE_COLOR = Color.GRAY;
 
-public class EnhancedBarGraph extends JPanel {
-    private List<Double> dataPoints;
-    private List<Color> barColors;
-    private List<String> barLabels;
+    private final BarGraphModel model = new BarGraphModel();
     private int barThickness = 40;
+    private int topBars;
+    private int[] topPositions = new int[0];
+    private BufferedImage chartImage;
+    private boolean chartValid;
+    private String title;
 
+    /**
+     * Constructor for the EnhancedBarGraph class.
+     */
     public EnhancedBarGraph() {
-        dataPoints = new ArrayList<>();
-        barColors = new ArrayList<>();
-        barLabels = new ArrayList<>();
+        model.addChangeListener(e -> invalidateChart());
     }
 
-
-    private String title;
-
+    /**
+     * Sets the title drawn above the bars.
+     *
+     * @param title The title, or null for none.
+     */
     public void setTitle(String title) {
         this.title = title;
+        invalidateChart();
     }
-    public void addBarData(Color color, double value, String label) {
-        barColors.add(color);
-        dataPoints.add(value);
-        barLabels.add(label);
+
+    /**
+     * Sets the bar of a series, replacing the bar it had.
+     *
+     * @param seriesId The id of the series, such as a steed's id.
+     * @param color    The color of the bar.
+     * @param value    The value the bar shows.
+     * @param label    The label under the bar.
+     */
+    public void setBarData(int seriesId, Color color, double value, String label) {
+        model.setBar(seriesId, color, value, label);
     }
 
+    /**
+     * Returns the model of the bars drawn.
+     *
+     * @return The model.
+     */
+    public BarGraphModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sets how wide each bar is drawn when there is room for it.
+     *
+     * @param thickness The width of a bar in pixels.
+     */
     public void setBarThickness(int thickness) {
         this.barThickness = thickness;
+        invalidateChart();
+    }
+
+    /**
+     * Shows only the largest bars, largest first, or every bar in the model's order.
+     *
+     * @param count How many of the largest bars to show, or 0 to show every bar.
+     */
+    public void setTopBars(int count) {
+        this.topBars = count;
+        topPositions = new int[count];
+        invalidateChart();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        if (dataPoints.isEmpty() || barColors.isEmpty()) return;
+        if (model.size() == 0 || getWidth() <= 0 || getHeight() <= 0) {
+            super.paintComponent(g);
+            return;
+        }
+
+        if (!chartValid || chartImage.getWidth() != getWidth() || chartImage.getHeight() != getHeight()) {
+            drawChartImage((Graphics2D) g);
+        }
+        if (!isOpaque()) {
+            super.paintComponent(g);
+        }
+        g.drawImage(chartImage, 0, 0, null);
+    }
+
+    /**
+     * Marks the image of the graph as out of date and asks for the graph to be repainted.
+     */
+    private void invalidateChart() {
+        chartValid = false;
+        repaint();
+    }
+
+    /**
+     * Draws the graph into its image, with the same font, color and hints as the graph is painted with.
+     * An opaque graph's background is drawn into the image too, so painting it is a plain copy.
+     *
+     * @param g The graphics context the graph is painted with.
+     */
+    private void drawChartImage(Graphics2D g) {
+        int transparency = isOpaque() ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+        if (chartImage == null || chartImage.getWidth() != getWidth() || chartImage.getHeight() != getHeight()
+                || chartImage.getTransparency() != transparency) {
+            if (chartImage != null) {
+                chartImage.flush();
+            }
+            chartImage = g.getDeviceConfiguration().createCompatibleImage(getWidth(), getHeight(), transparency);
+        }
+        Graphics2D chart = chartImage.createGraphics();
+        chart.setComposite(isOpaque() ? AlphaComposite.Src : AlphaComposite.Clear);
+        chart.setColor(getBackground());
+        chart.fillRect(0, 0, getWidth(), getHeight());
+        chart.setComposite(AlphaComposite.SrcOver);
+        chart.setRenderingHints(g.getRenderingHints());
+        chart.setFont(getFont());
+        chart.setColor(getForeground());
+        drawChart(chart);
+        chart.dispose();
+        chartValid = true;
+    }
 
+    /**
+     * Draws the title, bars and axes of the graph.
+     *
+     * @param g The Graphics object.
+     */
+    private void drawChart(Graphics g) {
         if (title != null) {
-            Font titleFont = new Font("Arial", Font.BOLD, 16);
-            FontMetrics titleFontMetrics = g.getFontMetrics(titleFont);
+            FontMetrics titleFontMetrics = g.getFontMetrics(TITLE_FONT);
             int titleWidth = titleFontMetrics.stringWidth(title);
             int titleX = (getWidth() - titleWidth) / 2;
             int titleY = 20;
-            g.setFont(titleFont);
+            g.setFont(TITLE_FONT);
             g.setColor(Color.BLACK);
             g.drawString(title, titleX, titleY);
         }
         int chartWidth = getWidth() - 100;
         int chartHeight = getHeight() - 100;
-        double maxDataPoint = dataPoints.stream().mapToDouble(v -> v).max().orElse(1);
+        double maxDataPoint = model.getValue(model.findMax(0, model.size()));
 
-        int numBars = dataPoints.size();
+        int numBars = model.size();
+        if (topBars > 0) {
+            numBars = model.findLargest(Math.min(topBars, numBars), topPositions);
+        }
         int totalBarPadding = (numBars - 1) * 2;
-        int totalBarThickness = (numBars * barThickness);
-        int barSpacing = (chartWidth - totalBarThickness - totalBarPadding) / numBars;
+        int thickness = Math.min(barThickness, (chartWidth - totalBarPadding) / numBars);
+        if (thickness < MIN_BAR_THICKNESS && topBars == 0) {
+            drawColumns(g, chartWidth, chartHeight, maxDataPoint);
+            drawAxes(g, chartWidth, chartHeight, maxDataPoint);
+            return;
+        }
+        thickness = Math.max(thickness, MIN_BAR_THICKNESS);
+        // labels only have to be kept apart once the bars have been squeezed together
+        boolean thinLabels = thickness < barThickness;
+        int totalBarThickness = (numBars * thickness);
+        int barSpacing = Math.max(0, (chartWidth - totalBarThickness - totalBarPadding) / numBars);
 
         int x = 50 + barSpacing;
-        for (int i = 0; i < dataPoints.size(); i++) {
-            int barHeight = (int) ((dataPoints.get(i) / maxDataPoint) * chartHeight);
+        int nextLabelX = Integer.MIN_VALUE;
+        for (int i = 0; i < numBars; i++) {
+            int position = topBars > 0 ? topPositions[i] : i;
+            int barHeight = (int) ((model.getValue(position) / maxDataPoint) * chartHeight);
             int y = getHeight() - barHeight - 40;
-            drawBar(g, x, y, barThickness, barHeight, barColors.get(i));
-            drawBarLabel(g, x, getHeight() - 5, barLabels.get(i));
-            x += (barThickness + barSpacing);
+            drawBar(g, x, y, thickness, barHeight, model.getColor(position));
+            if (!thinLabels || x >= nextLabelX) {
+                drawBarLabel(g, x, getHeight() - 5, model.getLabel(position));
+                nextLabelX = x + g.getFontMetrics().stringWidth(model.getLabel(position)) + LABEL_GAP;
+            }
+            x += (thickness + barSpacing);
         }
 
         drawAxes(g, chartWidth, chartHeight, maxDataPoint);
     }
 
+    /**
+     * Draws too many bars to fit as one column per pixel, each summarising the
+     * bars that fall in it: filled up to their mean in the color of the largest
+     * of them, grey on up to the largest, and marked in black at the smallest.
+     * Everything is drawn opaque, as translucent lines cost far more. Each column
+     * is worked out from the model's tree, so drawing takes the same time however
+     * many bars there are.
+     *
+     * @param g            The Graphics object.
+     * @param chartWidth   The width of the chart area.
+     * @param chartHeight  The height of the chart area.
+     * @param maxDataPoint The maximum data point value.
+     */
+    private void drawColumns(Graphics g, int chartWidth, int chartHeight, double maxDataPoint) {
+        int numBars = model.size();
+        int baseline = getHeight() - 40;
+        int nextLabelX = Integer.MIN_VALUE;
+        for (int column = 0; column < chartWidth; column++) {
+            int from = (int) ((long) column * numBars / chartWidth);
+            int to = (int) ((long) (column + 1) * numBars / chartWidth);
+            if (from == to) {
+                continue;
+            }
+            int largest = model.findMax(from, to);
+            double mean = model.sum(from, to) / (to - from);
+            int x = 50 + column;
+            int meanY = baseline - (int) (mean / maxDataPoint * chartHeight);
+            int minY = baseline - (int) (model.getValue(model.findMin(from, to)) / maxDataPoint * chartHeight);
+            int maxY = baseline - (int) (model.getValue(largest) / maxDataPoint * chartHeight);
+
+            g.setColor(RANGE_COLOR);
+            g.drawLine(x, meanY, x, maxY);
+            g.setColor(model.getColor(largest));
+            g.drawLine(x, baseline, x, meanY);
+            g.setColor(Color.BLACK);
+            g.drawLine(x, minY, x, minY);
+            if (x >= nextLabelX) {
+                drawBarLabel(g, x, getHeight() - 5, model.getLabel(largest));
+                nextLabelX = x + g.getFontMetrics().stringWidth(model.getLabel(largest)) + LABEL_GAP;
+            }
+        }
+        g.setColor(Color.BLACK);
+    }
+
     /**
      * Draws a single bar on the graph.
      *
@@ -0,0 +1,117 @@
+package part2;
+
+import java.awt.*;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps symbols drawn once each into one shared image, so they can be copied
+ * onto the track instead of being drawn as text every frame.
+ *
+ * Each combination of symbol, color and font is drawn the first time it is
+ * asked for and placed on a shelf in the atlas; the atlas grows taller when
+ * its shelves are full. A sprite is drawn at the same place, with the same
+ * pixels, as drawString would draw its symbol.
+ */
+class SpriteAtlas {
+    private static final int ATLAS_WIDTH = 1024;
+    private static final int PADDING = 1;
+
+    private BufferedImage atlas = new BufferedImage(ATLAS_WIDTH, 128, BufferedImage.TYPE_INT_ARGB_PRE);
+    private final Map<SpriteKey, Sprite> sprites = new HashMap<>();
+    private int shelfX;
+    private int shelfY;
+    private int shelfHeight;
+
+    /**
+     * A symbol drawn in the atlas.
+     *
+     * @param x       The left of the sprite in the atlas.
+     * @param y       The top of the sprite in the atlas.
+     * @param width   The width of the sprite.
+     * @param height  The height of the sprite.
+     * @param originX How far the sprite starts to the right of where the symbol is drawn from.
+     * @param originY How far the sprite starts below the symbol's baseline, which is usually negative.
+     */
+    record Sprite(int x, int y, int width, int height, int originX, int originY) {
+    }
+
+    private record SpriteKey(String symbol, Color color, Font font) {
+    }
+
+    /**
+     * Returns the sprite for a symbol, drawing it into the atlas if it is not there yet.
+     *
+     * @param symbol The symbol.
+     * @param color  The color of the symbol.
+     * @param font   The font of the symbol.
+     * @return The sprite.
+     */
+    Sprite getSprite(String symbol, Color color, Font font) {
+        return sprites.computeIfAbsent(new SpriteKey(symbol, color, font), this::rasterize);
+    }
+
+    /**
+     * Draws a sprite where drawString would draw its symbol.
+     *
+     * @param g        The graphics context.
+     * @param sprite   The sprite.
+     * @param x        The x-coordinate the symbol is drawn from.
+     * @param baseline The y-coordinate of the symbol's baseline.
+     */
+    void draw(Graphics2D g, Sprite sprite, int x, int baseline) {
+        int left = x + sprite.originX();
+        int top = baseline + sprite.originY();
+        g.drawImage(atlas, left, top, left + sprite.width(), top + sprite.height(),
+                sprite.x(), sprite.y(), sprite.x() + sprite.width(), sprite.y() + sprite.height(), null);
+    }
+
+    /**
+     * Draws a symbol into the next free space in the atlas.
+     *
+     * @param key The symbol, color and font to draw.
+     * @return The sprite the symbol was drawn into.
+     */
+    private Sprite rasterize(SpriteKey key) {
+        Graphics2D g = atlas.createGraphics();
+        Rectangle bounds = new TextLayout(key.symbol(), key.font(), g.getFontRenderContext()).getPixelBounds(null, 0, 0);
+        g.dispose();
+        int width = bounds.width + 2 * PADDING;
+        int height = bounds.height + 2 * PADDING;
+
+        if (shelfX + width > ATLAS_WIDTH) {
+            shelfX = 0;
+            shelfY += shelfHeight;
+            shelfHeight = 0;
+        }
+        while (shelfY + height > atlas.getHeight()) {
+            grow();
+        }
+
+        Sprite sprite = new Sprite(shelfX, shelfY, width, height, bounds.x - PADDING, bounds.y - PADDING);
+        g = atlas.createGraphics();
+        g.setClip(sprite.x(), sprite.y(), width, height);
+        g.setColor(key.color());
+        g.setFont(key.font());
+        g.drawString(key.symbol(), sprite.x() - sprite.originX(), sprite.y() - sprite.originY());
+        g.dispose();
+
+        shelfX += width;
+        shelfHeight = Math.max(shelfHeight, height);
+        return sprite;
+    }
+
+    /**
+     * Doubles the height of the atlas, keeping the sprites already in it.
+     */
+    private void grow() {
+        BufferedImage taller = new BufferedImage(ATLAS_WIDTH, atlas.getHeight() * 2, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = taller.createGraphics();
+        g.drawImage(atlas, 0, 0, null);
+        g.dispose();
+        atlas.flush();
+        atlas = taller;
+    }
+}
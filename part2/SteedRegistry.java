@@ -0,0 +1,122 @@
+package part2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every steed a dense id when it is registered, and keeps the current
+ * field in lane order.
+ *
+ * Ids count up from 0 and are never reused, so anything about a steed that
+ * outlives a field, such as a gambler's stakes, can be kept in an array indexed
+ * by id. Lanes are handed out in the order steeds join the field. Steeds are
+ * looked up by name only where a name comes in from the user.
+ */
+class SteedRegistry {
+    private UpgradedSteed[] steedsById = new UpgradedSteed[8];
+    private int numberOfSteeds;
+
+    private UpgradedSteed[] lanes = new UpgradedSteed[8];
+    private int numberOfLanes;
+    private final Map<String, UpgradedSteed> fieldByName = new HashMap<>();
+
+    /**
+     * Adds a steed to the field in the next free lane, giving it an id if it has not been registered before.
+     *
+     * @param steed The steed to add.
+     * @return The lane the steed is in.
+     */
+    int register(UpgradedSteed steed) {
+        if (steed.getId() < 0) {
+            if (numberOfSteeds == steedsById.length) {
+                steedsById = Arrays.copyOf(steedsById, numberOfSteeds * 2);
+            }
+            steed.setId(numberOfSteeds);
+            steedsById[numberOfSteeds++] = steed;
+        }
+        if (numberOfLanes == lanes.length) {
+            lanes = Arrays.copyOf(lanes, numberOfLanes * 2);
+        }
+        lanes[numberOfLanes] = steed;
+        fieldByName.put(steed.getSteedName(), steed);
+        return numberOfLanes++;
+    }
+
+    /**
+     * Empties the field. The steeds keep their ids.
+     */
+    void clearField() {
+        Arrays.fill(lanes, 0, numberOfLanes, null);
+        numberOfLanes = 0;
+        fieldByName.clear();
+    }
+
+    /**
+     * Returns the steed with an id.
+     *
+     * @param id The id of the steed.
+     * @return The steed.
+     */
+    UpgradedSteed getSteed(int id) {
+        return steedsById[id];
+    }
+
+    /**
+     * Returns how many steeds have ever been registered, which is one more than the highest id.
+     *
+     * @return The number of steeds registered.
+     */
+    int getNumberOfSteeds() {
+        return numberOfSteeds;
+    }
+
+    /**
+     * Returns the steed in a lane of the field.
+     *
+     * @param lane The lane.
+     * @return The steed in the lane.
+     */
+    UpgradedSteed getSteedInLane(int lane) {
+        return lanes[lane];
+    }
+
+    /**
+     * Returns the number of lanes in the field.
+     *
+     * @return The number of steeds in the field.
+     */
+    int getNumberOfLanes() {
+        return numberOfLanes;
+    }
+
+    /**
+     * Checks if the field is empty.
+     *
+     * @return true if no steed is in the field.
+     */
+    boolean isEmpty() {
+        return numberOfLanes == 0;
+    }
+
+    /**
+     * Finds a steed in the field by the name the user gave it.
+     *
+     * @param name The name of the steed.
+     * @return The steed, or null if no steed in the field has the name.
+     */
+    UpgradedSteed findByName(String name) {
+        return fieldByName.get(name);
+    }
+
+    /**
+     * Returns the field in lane order, for the windows and dialogs to list.
+     *
+     * @return An unmodifiable view of the field.
+     */
+    List<UpgradedSteed> getField() {
+        return Collections.unmodifiableList(Arrays.asList(lanes).subList(0, numberOfLanes));
+    }
+}
@@ -0,0 +1,114 @@
+package part2;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A narrow strip beside the track showing every lane at once, however many
+ * there are, with the part of the track in view outlined on it.
+ *
+ * Each lane is one row of a small image, filled in the steed's color as far
+ * as the steed has got, grey once it has stumbled. The rows are written
+ * straight into the image's pixels for each snapshot, and the whole image is
+ * stretched to the height of the strip when it is painted. Clicking or
+ * dragging on the strip scrolls the track to that lane.
+ */
+class TrackMinimap extends JComponent {
+    static final int MINIMAP_WIDTH = 60;
+    private static final int EMPTY_RGB = 0xFFFFFF;
+    private static final int STUMBLED_RGB = 0x808080;
+    private static final Color VIEW_OUTLINE = Color.BLACK;
+
+    private final TrackView track;
+    private BufferedImage lanesImage;
+    private int[] pixels;
+
+    /**
+     * Constructor for the TrackMinimap class.
+     *
+     * @param track The track the strip summarises and scrolls.
+     */
+    TrackMinimap(TrackView track) {
+        this.track = track;
+        setPreferredSize(new Dimension(MINIMAP_WIDTH, 0));
+        MouseAdapter scroller = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                scrollTrackTo(e.getY());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                scrollTrackTo(e.getY());
+            }
+        };
+        addMouseListener(scroller);
+        addMouseMotionListener(scroller);
+    }
+
+    /**
+     * Writes a snapshot into the strip. Must be called on the event dispatch thread.
+     *
+     * @param snapshot The snapshot to show.
+     */
+    void showSnapshot(CompetitionSnapshot snapshot) {
+        int lanes = snapshot.getNumberOfLanes();
+        if (lanes == 0) {
+            lanesImage = null;
+            repaint();
+            return;
+        }
+        if (lanesImage == null || lanesImage.getHeight() != lanes) {
+            lanesImage = new BufferedImage(MINIMAP_WIDTH, lanes, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) lanesImage.getRaster().getDataBuffer()).getData();
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            int row = lane * MINIMAP_WIDTH;
+            int filled = (int) Math.min(MINIMAP_WIDTH,
+                    (long) snapshot.getTrackProgress(lane) * MINIMAP_WIDTH / snapshot.getTrackLength());
+            int rgb = snapshot.hasStumbled(lane) ? STUMBLED_RGB : snapshot.getSteed(lane).getStallionColor().getRGB();
+            Arrays.fill(pixels, row, row + filled, rgb);
+            Arrays.fill(pixels, row + filled, row + MINIMAP_WIDTH, EMPTY_RGB);
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (lanesImage == null) {
+            return;
+        }
+        g.drawImage(lanesImage, 0, 0, getWidth(), getHeight(), null);
+
+        // the lanes take up all but the last lane's height of the track
+        int lanes = lanesImage.getHeight();
+        int lanesHeight = track.getLaneHeight() * lanes;
+        if (lanesHeight > 0) {
+            Rectangle visible = track.getVisibleRect();
+            int top = (int) ((long) visible.y * getHeight() / lanesHeight);
+            int height = Math.max(2, (int) ((long) visible.height * getHeight() / lanesHeight));
+            g.setColor(VIEW_OUTLINE);
+            g.drawRect(0, top, getWidth() - 1, Math.min(height, getHeight() - top) - 1);
+        }
+    }
+
+    /**
+     * Scrolls the track so the lane at a point on the strip is in the middle of the view.
+     *
+     * @param y The y-coordinate on the strip.
+     */
+    private void scrollTrackTo(int y) {
+        if (lanesImage == null || getHeight() == 0) {
+            return;
+        }
+        int lanesHeight = track.getLaneHeight() * lanesImage.getHeight();
+        int visibleHeight = track.getVisibleRect().height;
+        int centreY = (int) ((long) y * lanesHeight / getHeight());
+        track.scrollRectToVisible(new Rectangle(0, centreY - visibleHeight / 2, 1, visibleHeight));
+    }
+}
@@ -0,0 +1,387 @@
+package part2;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Draws the track from a competition snapshot, so it never reads the engine
+ * while the competition thread is changing it.
+ *
+ * The lane borders and finish flags never move, and every lane's are the same,
+ * so one lane border and one finish flag are drawn once into small images that
+ * are only redrawn when the track's width or lane height changes. Each frame
+ * copies them into the lanes inside the clip and draws the steeds and apples
+ * over them, so a track with hundreds of lanes costs no more to draw than the
+ * part of it on screen. Steed symbols, stumble markers and apples are
+ * copied from a sprite atlas rather than drawn as text. Fonts and the lane stroke
+ * are made once, and each steed's sprite and laid out name are kept in arrays
+ * indexed by the steed's id.
+ */
+class TrackRenderer {
+    static final int TRACK_MARGIN = 50;
+    static final int FINISH_MARGIN = 100;
+
+    private static final BasicStroke LANE_STROKE =
+            new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0);
+    private static final Font STEED_FONT = new Font("Arial", Font.BOLD, 30);
+    private static final Font NAME_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font APPLE_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final int NAME_OFFSET = 10;
+    private static final int APPLE_OFFSET = 5;
+    // how far above and below the centre of a lane its steed, name and apples reach
+    static final int LANE_ABOVE = 32;
+    static final int LANE_BELOW = 16;
+    private static final int STEED_WIDTH = 40;
+    private static final int DIRTY_MARGIN = 8;
+
+    // a lane border, and a finish flag over the end of its lane's border with room below for the flag to hang over
+    private BufferedImage borderTile;
+    private BufferedImage finishTile;
+    private int tileLaneHeight = -1;
+
+    private final SpriteAtlas sprites = new SpriteAtlas();
+    private final SpriteAtlas.Sprite stumbleSprite = sprites.getSprite("X", Color.RED, STEED_FONT);
+    private final SpriteAtlas.Sprite appleSprite = sprites.getSprite("🍎", Color.BLACK, APPLE_FONT);
+    // indexed by steed id
+    private SpriteAtlas.Sprite[] steedSprites = new SpriteAtlas.Sprite[0];
+
+    private FontRenderContext nameContext;
+    // indexed by steed id
+    private GlyphVector[] names = new GlyphVector[0];
+    private int[] nameWidths = new int[0];
+
+    /**
+     * Draws the track as it stood when a snapshot was taken.
+     *
+     * @param g           The graphics context.
+     * @param snapshot    The snapshot to draw.
+     * @param trackWidth  The width of the track.
+     * @param trackHeight The height of the track.
+     */
+    void render(Graphics2D g, CompetitionSnapshot snapshot, int trackWidth, int trackHeight) {
+        render(g, snapshot, snapshot, 1, trackWidth, trackHeight);
+    }
+
+    /**
+     * Draws the track part of the way from one snapshot to the next. Only the
+     * lanes inside the graphics context's clip are drawn.
+     *
+     * @param g           The graphics context.
+     * @param previous    The snapshot the steeds are moving from.
+     * @param current     The snapshot the steeds are moving to, whose apples and stumbles are drawn.
+     * @param progress    How far from previous to current to draw the steeds, from 0 to 1.
+     * @param trackWidth  The width of the track.
+     * @param trackHeight The height of the track.
+     */
+    void render(Graphics2D g, CompetitionSnapshot previous, CompetitionSnapshot current, double progress,
+                int trackWidth, int trackHeight) {
+        if (trackWidth <= 0 || trackHeight <= 0) {
+            return;
+        }
+        int lanes = current.getNumberOfLanes();
+        int laneHeight = trackHeight / (lanes + 1);
+        int finishLineX = trackWidth - FINISH_MARGIN;
+        if (!isSameCompetition(previous, current)) {
+            previous = current;
+        }
+
+        Rectangle clip = g.getClipBounds();
+        int firstLane = 0;
+        int lastLane = lanes - 1;
+        if (clip != null) {
+            firstLane = Math.max(0, laneAt(clip.y - LANE_BELOW, laneHeight));
+            lastLane = Math.min(lanes - 1, laneAt(clip.y + clip.height + LANE_ABOVE, laneHeight));
+        }
+
+        if (laneHeight > 0) {
+            drawStaticTiles(g, clip, trackWidth, laneHeight, lanes, finishLineX);
+        }
+        for (int lane = firstLane; lane <= lastLane; lane++) {
+            int centreY = lane * laneHeight + laneHeight / 2;
+            int fromX = calculateTrackX(previous.getTrackProgress(lane), previous.getTrackLength(), finishLineX);
+            int toX = calculateTrackX(current.getTrackProgress(lane), current.getTrackLength(), finishLineX);
+            drawSteed(g, current, lane, fromX + (int) Math.round((toX - fromX) * progress), centreY);
+        }
+        for (int lane = firstLane; lane <= lastLane; lane++) {
+            drawApples(g, current, lane, lane * laneHeight + laneHeight / 2, finishLineX);
+        }
+    }
+
+    /**
+     * Asks for only the parts of the track that differ between two snapshots to be
+     * repainted: for each lane in view whose steed moved or stumbled or lost an apple,
+     * the stretch of the lane from where the steed was to where it is now. Lanes
+     * scrolled out of view are skipped, as they are painted when they come into view.
+     *
+     * @param track    The component the track is painted on.
+     * @param previous The snapshot last painted, or null if none has been.
+     * @param current  The snapshot to paint next.
+     */
+    void repaintChanges(JComponent track, CompetitionSnapshot previous, CompetitionSnapshot current) {
+        int lanes = current.getNumberOfLanes();
+        if (previous == null || previous.getNumberOfLanes() != lanes || !isSameCompetition(previous, current)) {
+            track.repaint();
+            return;
+        }
+        int laneHeight = track.getHeight() / (lanes + 1);
+        int finishLineX = track.getWidth() - FINISH_MARGIN;
+        FontMetrics nameMetrics = track.getFontMetrics(NAME_FONT);
+        Rectangle visible = track.getVisibleRect();
+        int firstLane = Math.max(0, laneAt(visible.y - LANE_BELOW, laneHeight));
+        int lastLane = Math.min(lanes - 1, laneAt(visible.y + visible.height + LANE_ABOVE, laneHeight));
+
+        for (int lane = firstLane; lane <= lastLane; lane++) {
+            UpgradedSteed steed = current.getSteed(lane);
+            if (previous.getSteed(lane) != steed) {
+                track.repaint();
+                return;
+            }
+            int fromX = calculateTrackX(previous.getTrackProgress(lane), previous.getTrackLength(), finishLineX);
+            int toX = calculateTrackX(current.getTrackProgress(lane), current.getTrackLength(), finishLineX);
+            int applesBefore = previous.getLaneApplesStart(lane);
+            boolean appleEaten = applesBefore < previous.getLaneApplesEnd(lane)
+                    && previous.getLaneApplesEnd(lane) - applesBefore
+                    != current.getLaneApplesEnd(lane) - current.getLaneApplesStart(lane);
+            if (fromX == toX && previous.hasStumbled(lane) == current.hasStumbled(lane) && !appleEaten) {
+                continue;
+            }
+
+            int left = Math.min(fromX, toX);
+            if (appleEaten) {
+                left = Math.min(left, calculateTrackX(previous.getApplePosition(applesBefore),
+                        previous.getTrackLength(), finishLineX));
+            }
+            int right = Math.max(fromX, toX) + Math.max(STEED_WIDTH, NAME_OFFSET + nameWidth(nameMetrics, steed));
+            int centreY = lane * laneHeight + laneHeight / 2;
+            track.repaint(left - DIRTY_MARGIN, centreY - LANE_ABOVE,
+                    right - left + 2 * DIRTY_MARGIN, LANE_ABOVE + LANE_BELOW);
+        }
+    }
+
+    /**
+     * Calculates the x-coordinate of a point on the track.
+     *
+     * @param position    How far along the track the point is, in track units.
+     * @param trackLength The length of the track in track units.
+     * @param finishLineX The x-coordinate of the finish line.
+     * @return The x-coordinate of the point.
+     */
+    static int calculateTrackX(int position, int trackLength, int finishLineX) {
+        int x = TRACK_MARGIN + (int) ((double) position / trackLength * (finishLineX - TRACK_MARGIN));
+        return Math.min(x, finishLineX);
+    }
+
+    /**
+     * Copies the lane borders and finish flags of the lanes inside the clip onto the track.
+     *
+     * @param g           The graphics context.
+     * @param clip        The clip of the graphics context, or null if it has none.
+     * @param trackWidth  The width of the track.
+     * @param laneHeight  The height of each lane.
+     * @param lanes       The number of lanes.
+     * @param finishLineX The x-coordinate of the finish line.
+     */
+    private void drawStaticTiles(Graphics2D g, Rectangle clip, int trackWidth, int laneHeight, int lanes,
+                                 int finishLineX) {
+        prepareStaticTiles(g, trackWidth, laneHeight);
+        // the tile of lane i reaches from the top of lane i to the bottom of lane i + 1
+        int first = 0;
+        int last = lanes - 1;
+        if (clip != null) {
+            first = Math.max(0, Math.floorDiv(clip.y, laneHeight) - 1);
+            last = Math.min(lanes - 1, Math.floorDiv(clip.y + clip.height, laneHeight));
+        }
+        for (int lane = first; lane <= last; lane++) {
+            int top = (lane + 1) * laneHeight - 1;
+            g.drawImage(borderTile, TRACK_MARGIN, top, finishLineX, top + 3,
+                    TRACK_MARGIN, 0, finishLineX, 3, null);
+            g.drawImage(finishTile, finishLineX, lane * laneHeight, null);
+        }
+    }
+
+    /**
+     * Draws the lane border and finish flag tiles again if the track's width or lane height has changed.
+     *
+     * @param g          The graphics context the tiles are drawn onto.
+     * @param trackWidth The width of the track.
+     * @param laneHeight The height of each lane.
+     */
+    private void prepareStaticTiles(Graphics2D g, int trackWidth, int laneHeight) {
+        if (borderTile != null && borderTile.getWidth() == trackWidth && tileLaneHeight == laneHeight) {
+            return;
+        }
+        if (borderTile != null) {
+            borderTile.flush();
+            finishTile.flush();
+        }
+        GraphicsConfiguration configuration = g.getDeviceConfiguration();
+        borderTile = configuration.createCompatibleImage(trackWidth, 3, Transparency.TRANSLUCENT);
+        finishTile = configuration.createCompatibleImage(FINISH_MARGIN, 2 * laneHeight, Transparency.TRANSLUCENT);
+        tileLaneHeight = laneHeight;
+
+        // both are drawn exactly as onto the track, moved so the first lane's border and flag land in the tile
+        Graphics2D tile = borderTile.createGraphics();
+        tile.translate(0, -(laneHeight - 1));
+        drawLaneBorder(tile, laneHeight, trackWidth);
+        tile.dispose();
+
+        int finishLineX = trackWidth - FINISH_MARGIN;
+        tile = finishTile.createGraphics();
+        tile.translate(-finishLineX, 0);
+        drawLaneBorder(tile, laneHeight, trackWidth);
+        drawFinishLine(tile, laneHeight, new Font("Arial", Font.PLAIN, laneHeight), finishLineX);
+        tile.dispose();
+    }
+
+    /**
+     * Draws a lane border.
+     *
+     * @param g2d        The Graphics2D object.
+     * @param laneY      The y-coordinate of the lane.
+     * @param trackWidth The width of the track.
+     */
+    private void drawLaneBorder(Graphics2D g2d, int laneY, int trackWidth) {
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(LANE_STROKE);
+        g2d.drawLine(TRACK_MARGIN, laneY, trackWidth - TRACK_MARGIN, laneY);
+    }
+
+    /**
+     * Draws the finish flag of a lane.
+     *
+     * @param g2d          The Graphics2D object.
+     * @param laneY        The y-coordinate of the lane.
+     * @param flagFont     The font sized to the lanes.
+     * @param finishLineX  The x-coordinate of the finish line.
+     */
+    private void drawFinishLine(Graphics2D g2d, int laneY, Font flagFont, int finishLineX) {
+        g2d.setFont(flagFont);
+        g2d.drawString("🏁", finishLineX, laneY);
+    }
+
+    /**
+     * Draws a steed on the track.
+     *
+     * @param g2d          The Graphics2D object.
+     * @param snapshot     The snapshot being drawn.
+     * @param lane         The lane of the steed.
+     * @param steedX       The x-coordinate of the steed.
+     * @param steedY       The y-coordinate of the steed.
+     */
+    private void drawSteed(Graphics2D g2d, CompetitionSnapshot snapshot, int lane, int steedX, int steedY) {
+        UpgradedSteed steed = snapshot.getSteed(lane);
+        sprites.draw(g2d, getSteedSprite(steed), steedX, steedY);
+
+        g2d.setColor(Color.BLACK);
+        g2d.drawGlyphVector(getName(g2d, steed), steedX + NAME_OFFSET, steedY + NAME_OFFSET);
+
+        if (snapshot.hasStumbled(lane)) {
+            sprites.draw(g2d, stumbleSprite, steedX, steedY);
+        }
+    }
+
+    /**
+     * Draws the apples still in a lane.
+     *
+     * @param g2d          The Graphics2D object.
+     * @param snapshot     The snapshot being drawn.
+     * @param lane         The lane.
+     * @param appleY       The y-coordinate of the lane's apples.
+     * @param finishLineX  The x-coordinate of the finish line.
+     */
+    private void drawApples(Graphics2D g2d, CompetitionSnapshot snapshot, int lane, int appleY, int finishLineX) {
+        for (int apple = snapshot.getLaneApplesStart(lane); apple < snapshot.getLaneApplesEnd(lane); apple++) {
+            int appleX = calculateTrackX(snapshot.getApplePosition(apple), snapshot.getTrackLength(), finishLineX);
+            if (appleX >= finishLineX) {
+                break;
+            }
+            sprites.draw(g2d, appleSprite, appleX + APPLE_OFFSET, appleY + APPLE_OFFSET);
+        }
+    }
+
+    /**
+     * Checks if two snapshots are of the same competition, with the second taken no earlier than the first.
+     *
+     * @param previous The earlier snapshot.
+     * @param current  The later snapshot.
+     * @return true if the steeds can be drawn moving from one to the other.
+     */
+    private static boolean isSameCompetition(CompetitionSnapshot previous, CompetitionSnapshot current) {
+        return previous.getNumberOfLanes() == current.getNumberOfLanes()
+                && previous.getTrackLength() == current.getTrackLength()
+                && previous.getTick() <= current.getTick();
+    }
+
+    /**
+     * Returns the last lane whose centre is at or above a y-coordinate.
+     *
+     * @param y          The y-coordinate.
+     * @param laneHeight The height of each lane.
+     * @return The lane, which may be outside the track.
+     */
+    private static int laneAt(int y, int laneHeight) {
+        return Math.floorDiv(y - laneHeight / 2, Math.max(1, laneHeight));
+    }
+
+    /**
+     * Returns how wide a steed's name is drawn, working it out only the first time.
+     *
+     * @param metrics The metrics of the name font.
+     * @param steed   The steed.
+     * @return The width of the name.
+     */
+    private int nameWidth(FontMetrics metrics, UpgradedSteed steed) {
+        int id = steed.getId();
+        if (id >= nameWidths.length) {
+            nameWidths = Arrays.copyOf(nameWidths, Math.max(id + 1, nameWidths.length * 2));
+        }
+        if (nameWidths[id] == 0) {
+            nameWidths[id] = metrics.stringWidth(steed.getSteedName()) + 1;
+        }
+        return nameWidths[id];
+    }
+
+    /**
+     * Returns the sprite of a steed, looking it up in the atlas only the first time.
+     *
+     * @param steed The steed.
+     * @return The steed's symbol in its color.
+     */
+    private SpriteAtlas.Sprite getSteedSprite(UpgradedSteed steed) {
+        int id = steed.getId();
+        if (id >= steedSprites.length) {
+            steedSprites = Arrays.copyOf(steedSprites, Math.max(id + 1, steedSprites.length * 2));
+        }
+        if (steedSprites[id] == null) {
+            steedSprites[id] = sprites.getSprite(steed.getSymbol(), steed.getStallionColor(), STEED_FONT);
+        }
+        return steedSprites[id];
+    }
+
+    /**
+     * Returns the laid out name of a steed, laying it out again only if the text is drawn differently.
+     *
+     * @param g2d   The Graphics2D object the name is drawn with.
+     * @param steed The steed.
+     * @return The steed's name laid out in the name font.
+     */
+    private GlyphVector getName(Graphics2D g2d, UpgradedSteed steed) {
+        FontRenderContext context = g2d.getFontRenderContext();
+        if (!context.equals(nameContext)) {
+            nameContext = context;
+            Arrays.fill(names, null);
+        }
+        int id = steed.getId();
+        if (id >= names.length) {
+            names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+        }
+        if (names[id] == null) {
+            names[id] = NAME_FONT.createGlyphVector(context, steed.getSteedName());
+        }
+        return names[id];
+    }
+}
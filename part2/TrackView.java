@@ -0,0 +1,202 @@
+package part2;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * The track panel, which gives every lane a fixed height and scrolls when the
+ * field is too big for the lanes to fit.
+ *
+ * While the lanes fit, the panel fills its viewport and shares its height out
+ * between them as before. Once they would be shorter than a steed is tall, every
+ * lane is given that height and the panel grows to hold them all, so a field of
+ * hundreds of steeds can be scrolled through. Only the lanes in view are painted
+ * or asked to be repainted.
+ *
+ * When following the leaders, the panel scrolls after every snapshot so the
+ * leading steeds are in view, as many of them as fit, starting from the leader.
+ */
+class TrackView extends JPanel implements Scrollable {
+    static final int MIN_LANE_HEIGHT = TrackRenderer.LANE_ABOVE + TrackRenderer.LANE_BELOW;
+    // how many of the leading steeds are kept in view when following the leaders
+    static final int FOLLOWED_LEADERS = 3;
+
+    private final TrackRenderer trackRenderer = new TrackRenderer();
+    private CompetitionSnapshot displayedSnapshot;
+    private boolean followingLeaders;
+    private final int[] leaders = new int[FOLLOWED_LEADERS];
+
+    /**
+     * Constructor for the TrackView class.
+     */
+    TrackView() {
+        setOpaque(false);
+    }
+
+    /**
+     * Shows a snapshot, repainting only the parts of the track in view that have
+     * changed. Must be called on the event dispatch thread.
+     *
+     * @param snapshot The snapshot to show.
+     */
+    void showSnapshot(CompetitionSnapshot snapshot) {
+        if (snapshot == displayedSnapshot) {
+            return;
+        }
+        CompetitionSnapshot previous = displayedSnapshot;
+        displayedSnapshot = snapshot;
+        if (previous == null || previous.getNumberOfLanes() != snapshot.getNumberOfLanes()) {
+            revalidate();
+            repaint();
+        } else {
+            trackRenderer.repaintChanges(this, previous, snapshot);
+        }
+        if (followingLeaders) {
+            scrollToLeaders();
+        }
+    }
+
+    /**
+     * Returns the snapshot shown.
+     *
+     * @return The snapshot shown, or null if none has been.
+     */
+    CompetitionSnapshot getDisplayedSnapshot() {
+        return displayedSnapshot;
+    }
+
+    /**
+     * Sets whether to keep the leading steeds in view.
+     *
+     * @param followingLeaders true to scroll to the leaders after every snapshot.
+     */
+    void setFollowingLeaders(boolean followingLeaders) {
+        this.followingLeaders = followingLeaders;
+        if (followingLeaders && displayedSnapshot != null) {
+            scrollToLeaders();
+        }
+    }
+
+    /**
+     * Returns the height of each lane at the panel's current size.
+     *
+     * @return The lane height.
+     */
+    int getLaneHeight() {
+        return displayedSnapshot == null ? getHeight() : getHeight() / (displayedSnapshot.getNumberOfLanes() + 1);
+    }
+
+    /**
+     * Draws a snapshot at the panel's size.
+     *
+     * @param g        The graphics context.
+     * @param snapshot The snapshot to draw.
+     */
+    void renderTrack(Graphics g, CompetitionSnapshot snapshot) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        trackRenderer.render(g2d, snapshot, getWidth(), getHeight());
+        g2d.dispose();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (displayedSnapshot != null) {
+            renderTrack(g, displayedSnapshot);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int lanes = displayedSnapshot == null ? 0 : displayedSnapshot.getNumberOfLanes();
+        return new Dimension(super.getPreferredSize().width, (lanes + 1) * MIN_LANE_HEIGHT);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? MIN_LANE_HEIGHT : TrackRenderer.TRACK_MARGIN;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(MIN_LANE_HEIGHT, visibleRect.height - MIN_LANE_HEIGHT);
+        }
+        return visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // stretch to fill the viewport while every lane fits, and scroll once they do not
+        return getParent() instanceof JViewport viewport
+                && viewport.getHeight() >= getPreferredSize().height;
+    }
+
+    /**
+     * Scrolls so the leading steeds are in view, adding them from the leader down
+     * for as long as they all fit.
+     */
+    private void scrollToLeaders() {
+        int lanes = displayedSnapshot.getNumberOfLanes();
+        int laneHeight = getLaneHeight();
+        int visibleHeight = getVisibleRect().height;
+        if (lanes == 0 || laneHeight == 0 || visibleHeight == 0) {
+            return;
+        }
+        int found = findLeaders();
+        if (found == 0) {
+            return;
+        }
+        int top = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < found; i++) {
+            int centreY = leaders[i] * laneHeight + laneHeight / 2;
+            int newTop = Math.min(top, centreY - TrackRenderer.LANE_ABOVE);
+            int newBottom = Math.max(bottom, centreY + TrackRenderer.LANE_BELOW);
+            if (i > 0 && newBottom - newTop > visibleHeight) {
+                break;
+            }
+            top = newTop;
+            bottom = newBottom;
+        }
+        scrollRectToVisible(new Rectangle(0, top, 1, bottom - top));
+    }
+
+    /**
+     * Finds the lanes of the steeds still running that are furthest along, furthest
+     * first, in one pass over the field.
+     *
+     * @return How many leaders were found, at most FOLLOWED_LEADERS.
+     */
+    private int findLeaders() {
+        int found = 0;
+        for (int lane = 0; lane < displayedSnapshot.getNumberOfLanes(); lane++) {
+            if (displayedSnapshot.hasStumbled(lane)) {
+                continue;
+            }
+            int progress = displayedSnapshot.getTrackProgress(lane);
+            int rank = found;
+            while (rank > 0 && displayedSnapshot.getTrackProgress(leaders[rank - 1]) < progress) {
+                rank--;
+            }
+            if (rank == FOLLOWED_LEADERS) {
+                continue;
+            }
+            int end = Math.min(found, FOLLOWED_LEADERS - 1);
+            System.arraycopy(leaders, rank, leaders, rank + 1, end - rank);
+            leaders[rank] = lane;
+            found = Math.min(found + 1, FOLLOWED_LEADERS);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,266 @@
+package part2;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A line chart of how values, such as a steed's victory odds, change from one
+ * competition to the next, one line per series.
+ *
+ * Each series keeps its last points in a ring buffer of fixed capacity, so the
+ * chart uses the same memory after ten thousand competitions as after a
+ * hundred. Points are staged with setPoint and added together by commitRace,
+ * and a series with no point staged gets a gap. Adding a point does not draw
+ * the chart again: the lines are kept in an image, which is scrolled left by
+ * one step and has only the newest step of every line drawn onto it. The whole
+ * image is drawn again from the buffers only when the chart changes size, a
+ * series is removed, or a value goes above the top of the scale.
+ */
+public class TrendChart extends JPanel {
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    // how many pixels apart the points of a line are
+    private static final int STEP = 3;
+    // how much room is left above the largest value when the scale is worked out
+    private static final double HEADROOM = 1.25;
+    private static final int PLOT_LEFT = 50;
+    private static final int PLOT_TOP = 30;
+    private static final int PLOT_BOTTOM_MARGIN = 40;
+
+    private final int capacity;
+    private final Map<Integer, Series> series = new LinkedHashMap<>();
+    private int races;
+    private String title;
+
+    private BufferedImage plotImage;
+    private boolean plotValid;
+    private double scaleMax = 1;
+
+    /**
+     * The points of a series and the point staged for the next competition.
+     */
+    private static final class Series {
+        private final DoubleRingBuffer points;
+        private Color color;
+        private double staged = Double.NaN;
+
+        private Series(int capacity) {
+            points = new DoubleRingBuffer(capacity);
+        }
+    }
+
+    /**
+     * Constructor for the TrendChart class.
+     *
+     * @param capacity How many points each series keeps.
+     */
+    public TrendChart(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sets the title drawn above the chart.
+     *
+     * @param title The title, or null for none.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+        repaint();
+    }
+
+    /**
+     * Stages the point of a series for the competition being added next.
+     *
+     * @param seriesId The id of the series, such as a steed's id.
+     * @param color    The color of the series' line.
+     * @param value    The value of the point.
+     */
+    public void setPoint(int seriesId, Color color, double value) {
+        Series line = series.get(seriesId);
+        if (line == null) {
+            line = new Series(capacity);
+            // a series joining late has a gap for every competition before it
+            for (int i = 0; i < Math.min(races, capacity); i++) {
+                line.points.add(Double.NaN);
+            }
+            series.put(seriesId, line);
+        }
+        if (!color.equals(line.color)) {
+            line.color = color;
+            plotValid = false;
+        }
+        line.staged = value;
+    }
+
+    /**
+     * Removes every series not in a set.
+     *
+     * @param seriesIds The ids of the series to keep.
+     */
+    public void retainSeries(Set<Integer> seriesIds) {
+        if (series.keySet().retainAll(seriesIds)) {
+            plotValid = false;
+            repaint();
+        }
+    }
+
+    /**
+     * Adds the points staged as the next competition, scrolling the chart along by one step.
+     */
+    public void commitRace() {
+        races++;
+        boolean aboveScale = false;
+        for (Series line : series.values()) {
+            line.points.add(line.staged);
+            aboveScale |= line.staged > scaleMax;
+            line.staged = Double.NaN;
+        }
+        if (plotValid && !aboveScale) {
+            scrollPlot();
+            repaint(PLOT_LEFT, PLOT_TOP, plotImage.getWidth(), plotImage.getHeight());
+        } else {
+            plotValid = false;
+            repaint();
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int plotWidth = getWidth() - 2 * PLOT_LEFT;
+        int plotHeight = getHeight() - PLOT_TOP - PLOT_BOTTOM_MARGIN;
+        if (plotWidth <= STEP || plotHeight <= 1) {
+            return;
+        }
+        if (!plotValid || plotImage.getWidth() != plotWidth || plotImage.getHeight() != plotHeight) {
+            drawPlot((Graphics2D) g, plotWidth, plotHeight);
+        }
+        g.drawImage(plotImage, PLOT_LEFT, PLOT_TOP, null);
+        drawAxes(g, plotWidth, plotHeight);
+    }
+
+    /**
+     * Scrolls the lines left by one step and draws the newest step of each.
+     */
+    private void scrollPlot() {
+        int width = plotImage.getWidth();
+        int height = plotImage.getHeight();
+        Graphics2D plot = plotImage.createGraphics();
+        plot.copyArea(STEP, 0, width - STEP, height, -STEP, 0);
+        plot.setColor(getBackground());
+        plot.fillRect(width - STEP, 0, STEP, height);
+        for (Series line : series.values()) {
+            int newest = line.points.size() - 1;
+            if (newest > 0) {
+                drawStep(plot, line, newest, width - 1, height);
+            }
+        }
+        plot.dispose();
+    }
+
+    /**
+     * Draws every line into the plot image from the buffers, working out the scale again.
+     *
+     * @param g          The graphics context the chart is painted with.
+     * @param plotWidth  The width of the plot.
+     * @param plotHeight The height of the plot.
+     */
+    private void drawPlot(Graphics2D g, int plotWidth, int plotHeight) {
+        if (plotImage == null || plotImage.getWidth() != plotWidth || plotImage.getHeight() != plotHeight) {
+            if (plotImage != null) {
+                plotImage.flush();
+            }
+            plotImage = g.getDeviceConfiguration().createCompatibleImage(plotWidth, plotHeight, Transparency.OPAQUE);
+        }
+        int visiblePoints = plotWidth / STEP + 1;
+
+        double largest = 0;
+        for (Series line : series.values()) {
+            for (int i = Math.max(0, line.points.size() - visiblePoints); i < line.points.size(); i++) {
+                double value = line.points.get(i);
+                if (value > largest) {
+                    largest = value;
+                }
+            }
+        }
+        scaleMax = largest > 0 ? largest * HEADROOM : 1;
+
+        Graphics2D plot = plotImage.createGraphics();
+        plot.setColor(getBackground());
+        plot.fillRect(0, 0, plotWidth, plotHeight);
+        for (Series line : series.values()) {
+            int newest = line.points.size() - 1;
+            int x = plotWidth - 1;
+            for (int i = newest; i > 0 && i > newest - visiblePoints; i--) {
+                drawStep(plot, line, i, x, plotHeight);
+                x -= STEP;
+            }
+        }
+        plot.dispose();
+        plotValid = true;
+    }
+
+    /**
+     * Draws the step of a line from the point before a point to the point, unless either is a gap.
+     *
+     * @param plot       The graphics context of the plot image.
+     * @param line       The series.
+     * @param index      The index of the point in the series' buffer, at least 1.
+     * @param x          The x-coordinate of the point.
+     * @param plotHeight The height of the plot.
+     */
+    private void drawStep(Graphics2D plot, Series line, int index, int x, int plotHeight) {
+        double from = line.points.get(index - 1);
+        double to = line.points.get(index);
+        if (Double.isNaN(from) || Double.isNaN(to)) {
+            return;
+        }
+        plot.setColor(line.color);
+        plot.drawLine(x - STEP, valueY(from, plotHeight), x, valueY(to, plotHeight));
+    }
+
+    /**
+     * Draws the title, the axes and the scale around the plot.
+     *
+     * @param g          The graphics context.
+     * @param plotWidth  The width of the plot.
+     * @param plotHeight The height of the plot.
+     */
+    private void drawAxes(Graphics g, int plotWidth, int plotHeight) {
+        g.setColor(Color.BLACK);
+        if (title != null) {
+            FontMetrics titleFontMetrics = g.getFontMetrics(TITLE_FONT);
+            g.setFont(TITLE_FONT);
+            g.drawString(title, (getWidth() - titleFontMetrics.stringWidth(title)) / 2, 20);
+            g.setFont(getFont());
+        }
+        int left = PLOT_LEFT - 1;
+        int bottom = PLOT_TOP + plotHeight;
+        g.drawLine(left, PLOT_TOP, left, bottom);
+        g.drawLine(left, bottom, left + plotWidth, bottom);
+
+        FontMetrics fm = g.getFontMetrics();
+        for (int i = 0; i <= 2; i++) {
+            int y = bottom - i * plotHeight / 2;
+            String label = String.format("%.2f", scaleMax * i / 2);
+            g.drawLine(left - 5, y, left, y);
+            g.drawString(label, left - fm.stringWidth(label) - 8, y + fm.getAscent() / 2);
+        }
+        String range = "Last " + Math.min(races, Math.min(capacity, plotWidth / STEP + 1)) + " competitions";
+        g.drawString(range, left + plotWidth - fm.stringWidth(range), bottom + fm.getHeight() + 4);
+    }
+
+    /**
+     * Returns the y-coordinate of a value in the plot.
+     *
+     * @param value      The value.
+     * @param plotHeight The height of the plot.
+     * @return The y-coordinate, from the top of the plot.
+     */
+    private int valueY(double value, int plotHeight) {
+        return plotHeight - 1 - (int) (value / scaleMax * (plotHeight - 1));
+    }
+}
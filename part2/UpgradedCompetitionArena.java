@@ -1,3 +1,6 @@
+package part2;
+
+import part1.TickScheduler;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -5,19 +8,27 @@ import java.awt.*;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 public class UpgradedCompetitionArena {
+    // how many competitions the trend charts remember
+    private static final int TREND_CAPACITY = 1000;
     private JFrame window;
-    private LinkedHashMap<String, UpgradedSteed> steeds;
-    private JPanel trackPanel;
+    private final SteedRegistry steeds = new SteedRegistry();
+    private TrackView trackPanel;
+    private TrackMinimap trackMinimap;
+    private JPanel trackArea;
     private int trackLength = 500;
     private Thread competitionThread;
     private JPanel controlPanel;
     private int numberOfSteeds = 0;
     private LinkedHashMap<Integer, UpgradedGambler> gamblers;
     private JPanel gamblerStatsPanel;
-    private boolean isConfigured = false;
     private JButton beginCompetitionButton;
+    private JButton trackLengthButton;
+    private JButton numberOfSteedsButton;
+    private JButton numberOfGamblersButton;
+    private JButton configureSteedsButton;
     private JPanel statsPanel;
     private JPanel gamblingPanel;
     private JPanel historyPanel;
@@ -25,7 +36,15 @@ public class UpgradedCompetitionArena {
     private EnhancedBarGraph aptitudeGraph;
     private EnhancedBarGraph recordTimeGraph;
     private EnhancedBarGraph oddsGraph;
-    private java.util.List<Point> applePositions;
+    private JScrollPane statisticsPane;
+    private TrendChart oddsTrend;
+    private TrendChart aptitudeTrend;
+    private final CompetitionEngine engine;
+    private final TickScheduler tickScheduler = new TickScheduler(100);
+    private volatile boolean instantResults;
+    private JPanel mainPanel;
+    private ActiveTrackView activeTrackView;
+    private final Runnable trackRepainter = this::showLatestSnapshot;
 
     /**
      * Constructor for the UpgradedCompetitionArena class.
@@ -33,12 +52,71 @@ public class UpgradedCompetitionArena {
      * @throws IOException if an I/O error occurs.
      */
     public UpgradedCompetitionArena() throws IOException {
-        steeds = new LinkedHashMap<>();
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructor for the UpgradedCompetitionArena class.
+     * The seed for every competition's streams, one per steed and one for the
+     * apples, is drawn from the given source, so a seeded source replays the same competitions.
+     *
+     * @param randomSource The source of all randomness in the arena.
+     * @throws IOException if an I/O error occurs.
+     */
+    public UpgradedCompetitionArena(RandomGenerator randomSource) throws IOException {
         gamblers = new LinkedHashMap<>();
-        applePositions = new ArrayList<>();
+        engine = new CompetitionEngine(randomSource.nextLong());
+        engine.setField(steeds);
+        engine.publishSnapshot();
         initializeInterface();
     }
 
+    /**
+     * Constructor for an arena with no window, so competitions can be run and drawn from code.
+     *
+     * @param randomSource The source of all randomness in the arena.
+     * @param trackWidth   The width the track is drawn at.
+     * @param trackHeight  The height the track is drawn at.
+     */
+    UpgradedCompetitionArena(RandomGenerator randomSource, int trackWidth, int trackHeight) {
+        gamblers = new LinkedHashMap<>();
+        engine = new CompetitionEngine(randomSource.nextLong());
+        engine.setField(steeds);
+        trackPanel = new TrackView();
+        trackPanel.setSize(trackWidth, trackHeight);
+    }
+
+    /**
+     * Adds a steed in the next free lane.
+     *
+     * @param steed The steed to add.
+     */
+    void addSteed(UpgradedSteed steed) {
+        steeds.register(steed);
+        numberOfSteeds = steeds.getNumberOfLanes();
+        engine.setField(steeds);
+        engine.publishSnapshot();
+    }
+
+    /**
+     * Sets the track length.
+     *
+     * @param trackLength The length of the track.
+     */
+    void setTrackLength(int trackLength) {
+        this.trackLength = trackLength;
+        engine.setTrackLength(trackLength);
+    }
+
+    /**
+     * Returns the engine the competitions are run by.
+     *
+     * @return The competition engine.
+     */
+    CompetitionEngine getEngine() {
+        return engine;
+    }
+
     /**
      * Initializes the user interface.
      *
@@ -51,19 +129,21 @@ public class UpgradedCompetitionArena {
         window.setResizable(false);
         window.setLocationRelativeTo(null);
 
-        Image backgroundImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("/background.jpeg")));
+        Image backgroundImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("background.jpeg")));
         backgroundImage = backgroundImage.getScaledInstance(window.getWidth(), window.getHeight(), Image.SCALE_SMOOTH);
         ImageIcon backgroundIcon = new ImageIcon(backgroundImage);
         JLabel backgroundLabel = new JLabel(backgroundIcon);
         backgroundLabel.setLayout(new BorderLayout());
 
-        JPanel mainPanel = new JPanel();
+        mainPanel = new JPanel();
         mainPanel.setLayout(new BorderLayout());
         mainPanel.setOpaque(false);
 
         controlPanel = createControlPanel();
-        trackPanel = createTrackPanel();
+        trackArea = createTrackArea();
         statsPanel = createStatsPanel();
+        oddsTrend = createTrendChart("Victory Odds by Competition");
+        aptitudeTrend = createTrendChart("Aptitude Levels by Competition");
         gamblingPanel = createGamblingPanel();
         historyPanel = createHistoryPanel();
 
@@ -81,7 +161,7 @@ public class UpgradedCompetitionArena {
         topPanel.add(createStyledButton("View Player Info", this::viewPlayerInfo));
 
         mainPanel.add(leftPanel, BorderLayout.WEST);
-        mainPanel.add(trackPanel, BorderLayout.CENTER);
+        mainPanel.add(trackArea, BorderLayout.CENTER);
         mainPanel.add(topPanel, BorderLayout.NORTH);
 
         backgroundLabel.add(mainPanel, BorderLayout.CENTER);
@@ -116,8 +196,21 @@ public class UpgradedCompetitionArena {
     }
 
     private void displayStatistics() {
+        if (statisticsPane == null) {
+            statisticsPane = createStatisticsPane();
+        }
+        JOptionPane.showMessageDialog(window, statisticsPane, "Competition Statistics", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    /**
+     * Creates the statistics shown by displayStatistics. It is only made the first
+     * time, and the graphs in it are kept up to date after every competition.
+     *
+     * @return The scroll pane holding the statistics.
+     */
+    private JScrollPane createStatisticsPane() {
         JPanel statisticsPanel = new JPanel();
-        statisticsPanel.setLayout(new GridLayout(2, 2));
+        statisticsPanel.setLayout(new GridLayout(3, 2));
     
         victoryGraph = createVictoryGraph();
         aptitudeGraph = createAptitudeGraph();
@@ -134,11 +227,25 @@ public class UpgradedCompetitionArena {
         statisticsPanel.add(aptitudeGraph);
         statisticsPanel.add(recordTimeGraph);
         statisticsPanel.add(oddsGraph);
+        statisticsPanel.add(oddsTrend);
+        statisticsPanel.add(aptitudeTrend);
     
         JScrollPane scrollPane = new JScrollPane(statisticsPanel);
         scrollPane.setPreferredSize(new Dimension(800, 600));
-    
-        JOptionPane.showMessageDialog(window, scrollPane, "Competition Statistics", JOptionPane.PLAIN_MESSAGE);
+        return scrollPane;
+    }
+
+    /**
+     * Creates a chart of how a statistic changes over the competitions.
+     *
+     * @param title The title of the chart.
+     * @return The chart.
+     */
+    private TrendChart createTrendChart(String title) {
+        TrendChart chart = new TrendChart(TREND_CAPACITY);
+        chart.setTitle(title);
+        chart.setPreferredSize(new Dimension(400, 300));
+        return chart;
     }
 
     /**
@@ -150,8 +257,8 @@ public class UpgradedCompetitionArena {
         EnhancedBarGraph graph = new EnhancedBarGraph();
         graph.setPreferredSize(new Dimension(400, 300));
 
-        for (UpgradedSteed steed : steeds.values()) {
-            graph.addBarData(steed.getStallionColor(), steed.getTriumphCount(), steed.getSteedName());
+        for (UpgradedSteed steed : steeds.getField()) {
+            graph.setBarData(steed.getId(), steed.getStallionColor(), steed.getTriumphCount(), steed.getSteedName());
         }
 
         return graph;
@@ -166,8 +273,8 @@ public class UpgradedCompetitionArena {
         EnhancedBarGraph graph = new EnhancedBarGraph();
         graph.setPreferredSize(new Dimension(400, 300));
 
-        for (UpgradedSteed steed : steeds.values()) {
-            graph.addBarData(steed.getStallionColor(), steed.getAptitudeLevel(), steed.getSteedName());
+        for (UpgradedSteed steed : steeds.getField()) {
+            graph.setBarData(steed.getId(), steed.getStallionColor(), steed.getAptitudeLevel(), steed.getSteedName());
         }
 
         return graph;
@@ -182,8 +289,8 @@ public class UpgradedCompetitionArena {
         EnhancedBarGraph graph = new EnhancedBarGraph();
         graph.setPreferredSize(new Dimension(400, 300));
 
-        for (UpgradedSteed steed : steeds.values()) {
-            graph.addBarData(steed.getStallionColor(), steed.getRecordTime(), steed.getSteedName());
+        for (UpgradedSteed steed : steeds.getField()) {
+            graph.setBarData(steed.getId(), steed.getStallionColor(), steed.getRecordTime(), steed.getSteedName());
         }
 
         return graph;
@@ -198,8 +305,8 @@ public class UpgradedCompetitionArena {
         EnhancedBarGraph graph = new EnhancedBarGraph();
         graph.setPreferredSize(new Dimension(400, 300));
 
-        for (UpgradedSteed steed : steeds.values()) {
-            graph.addBarData(steed.getStallionColor(), steed.getVictoryOdds(), steed.getSteedName());
+        for (UpgradedSteed steed : steeds.getField()) {
+            graph.setBarData(steed.getId(), steed.getStallionColor(), steed.getVictoryOdds(), steed.getSteedName());
         }
 
         return graph;
@@ -215,21 +322,97 @@ public class UpgradedCompetitionArena {
         panel.setOpaque(false);
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         panel.add(Box.createRigidArea(new Dimension(0, 80))); // Space between buttons
-        panel.add(createStyledButton("Set Track Length", this::configureTrackLength));
+        trackLengthButton = createStyledButton("Set Track Length", this::configureTrackLength);
+        panel.add(trackLengthButton);
         panel.add(Box.createRigidArea(new Dimension(0, 10))); // Space between buttons
-        panel.add(createStyledButton("Set Number of Steeds", this::getNumberOfSteeds));
+        numberOfSteedsButton = createStyledButton("Set Number of Steeds", this::getNumberOfSteeds);
+        panel.add(numberOfSteedsButton);
         panel.add(Box.createRigidArea(new Dimension(0, 10))); // Space between buttons
-        panel.add(createStyledButton("Set Number of Gamblers", this::getNumberOfGamblers));
+        numberOfGamblersButton = createStyledButton("Set Number of Gamblers", this::getNumberOfGamblers);
+        panel.add(numberOfGamblersButton);
         panel.add(Box.createRigidArea(new Dimension(0, 10))); // Space between buttons
-        panel.add(createStyledButton("Configure Steeds", this::configureSteeds));
+        configureSteedsButton = createStyledButton("Configure Steeds", this::configureSteeds);
+        panel.add(configureSteedsButton);
         panel.add(Box.createRigidArea(new Dimension(0, 10))); // Space between buttons
         beginCompetitionButton = createStyledButton("Begin Competition", this::beginCompetition);
         beginCompetitionButton.setEnabled(false);
         panel.add(beginCompetitionButton);
+        panel.add(Box.createRigidArea(new Dimension(0, 10))); // Space between buttons
+        panel.add(createSpeedSelector());
+        panel.add(Box.createRigidArea(new Dimension(0, 10)));
+        panel.add(createSmoothTrackToggle());
+        panel.add(createFollowLeadersToggle());
 
         return panel;
     }
 
+    /**
+     * Creates the selector for how fast competitions run. The speed can be
+     * changed while a competition is running. Instant plays the rest of the
+     * competition without drawing it and shows only the result.
+     *
+     * @return The speed selector.
+     */
+    private JComboBox<String> createSpeedSelector() {
+        String[] speeds = {"1x", "10x", "100x", "Unlimited", "Instant"};
+        double[] timeScales = {1, 10, 100, TickScheduler.UNLIMITED, TickScheduler.UNLIMITED};
+        JComboBox<String> selector = new JComboBox<>(speeds);
+        selector.setFont(new Font("Arial", Font.BOLD, 14));
+        selector.setMaximumSize(new Dimension(200, 40));
+        selector.setAlignmentX(Component.LEFT_ALIGNMENT);
+        selector.addActionListener(e -> {
+            int speed = selector.getSelectedIndex();
+            tickScheduler.setTimeScale(timeScales[speed]);
+            instantResults = speed == speeds.length - 1;
+        });
+        return selector;
+    }
+
+    /**
+     * Creates the toggle between the track panel, which Swing repaints only where
+     * the steeds have moved, and a canvas that draws the whole track at 60 frames
+     * a second with the steeds gliding between ticks.
+     *
+     * @return The toggle.
+     */
+    private JCheckBox createSmoothTrackToggle() {
+        JCheckBox toggle = new JCheckBox("Smooth Track (60 fps)");
+        toggle.setFont(new Font("Arial", Font.BOLD, 14));
+        toggle.setOpaque(false);
+        toggle.setAlignmentX(Component.LEFT_ALIGNMENT);
+        toggle.addActionListener(e -> {
+            if (toggle.isSelected()) {
+                activeTrackView = new ActiveTrackView(engine, 60);
+                mainPanel.remove(trackArea);
+                mainPanel.add(activeTrackView, BorderLayout.CENTER);
+                mainPanel.revalidate();
+                activeTrackView.start();
+            } else {
+                activeTrackView.stop();
+                mainPanel.remove(activeTrackView);
+                activeTrackView = null;
+                mainPanel.add(trackArea, BorderLayout.CENTER);
+                mainPanel.revalidate();
+                showLatestSnapshot();
+            }
+        });
+        return toggle;
+    }
+
+    /**
+     * Creates the toggle for keeping the leading steeds in view as the track scrolls.
+     *
+     * @return The toggle.
+     */
+    private JCheckBox createFollowLeadersToggle() {
+        JCheckBox toggle = new JCheckBox("Follow Leaders");
+        toggle.setFont(new Font("Arial", Font.BOLD, 14));
+        toggle.setOpaque(false);
+        toggle.setAlignmentX(Component.LEFT_ALIGNMENT);
+        toggle.addActionListener(e -> trackPanel.setFollowingLeaders(toggle.isSelected()));
+        return toggle;
+    }
+
     /**
      * Creates a styled button.
      *
@@ -252,151 +435,55 @@ public class UpgradedCompetitionArena {
     }
 
     /**
-     * Creates the track panel.
+     * Creates the track, which scrolls when the field is too big to fit, with the minimap beside it.
      *
-     * @return The track panel.
+     * @return The panel holding the track and the minimap.
      */
-    private JPanel createTrackPanel() {
-        JPanel panel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                if (isConfigured) {
-                    renderTrack(g);
-                }
-            }
-        };
+    private JPanel createTrackArea() {
+        trackPanel = new TrackView();
+        trackMinimap = new TrackMinimap(trackPanel);
+
+        JScrollPane scrollPane = new JScrollPane(trackPanel);
+        scrollPane.setOpaque(false);
+        scrollPane.getViewport().setOpaque(false);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.getViewport().addChangeListener(e -> trackMinimap.repaint());
+
+        JPanel panel = new JPanel(new BorderLayout());
         panel.setOpaque(false);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(trackMinimap, BorderLayout.EAST);
         return panel;
     }
 
  /**
- * Renders the track.
- *
- * @param g The graphics context.
+ * Asks for the parts of the track that have changed since it was last shown
+ * to be repainted with the latest snapshot. Must be called on the event dispatch thread.
  */
-private void renderTrack(Graphics g) {
-    Graphics2D g2d = (Graphics2D) g.create();
-    int trackWidth = trackPanel.getWidth();
-    int trackHeight = trackPanel.getHeight();
-    int laneHeight = trackHeight / (steeds.size() + 1);
-    int finishLineX = trackWidth - 100;
-
-    for (int i = 0; i < steeds.size(); i++) {
-        int laneY = (i + 1) * laneHeight;
-        drawLaneBorders(g2d, laneY, trackWidth);
-        drawFinishLine(g2d, laneY, laneHeight, finishLineX);
+private void showLatestSnapshot() {
+    CompetitionSnapshot latest = engine.getLatestSnapshot();
+    if (latest == null || latest == trackPanel.getDisplayedSnapshot()) {
+        return;
     }
-
-    drawSteeds(g2d, laneHeight, finishLineX);
-    drawApples(g2d, laneHeight, finishLineX); // Draw apples after steeds
-
-    g2d.dispose();
+    trackPanel.showSnapshot(latest);
+    trackMinimap.showSnapshot(latest);
 }
 
-    /**
-     * Draws the lane borders.
-     *
-     * @param g2d        The Graphics2D object.
-     * @param laneY      The y-coordinate of the lane.
-     * @param trackWidth The width of the track.
-     */
-    private void drawLaneBorders(Graphics2D g2d, int laneY, int trackWidth) {
-        g2d.setColor(Color.BLACK);
-        g2d.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0));
-        g2d.drawLine(50, laneY, trackWidth - 50, laneY);
-    }
-
-    /**
-     * Draws the finish line.
-     *
-     * @param g2d          The Graphics2D object.
-     * @param laneY        The y-coordinate of the lane.
-     * @param laneHeight   The height of each lane.
-     * @param finishLineX  The x-coordinate of the finish line.
-     */
-    private void drawFinishLine(Graphics2D g2d, int laneY, int laneHeight, int finishLineX) {
-        g2d.setFont(new Font("Arial", Font.PLAIN, laneHeight));
-        g2d.drawString("🏁", finishLineX, laneY);
-    }
-
-    /**
-     * Draws the steeds on the track.
-     *
-     * @param g2d          The Graphics2D object.
-     * @param laneHeight   The height of each lane.
-     * @param finishLineX  The x-coordinate of the finish line.
-     */
-    private void drawSteeds(Graphics2D g2d, int laneHeight, int finishLineX) {
-        int steedY = laneHeight / 2;
-
-        for (UpgradedSteed steed : steeds.values()) {
-            drawSteed(g2d, steed, steedY, finishLineX);
-            steedY += laneHeight;
-        }
-    }
-/**
- * Draws the apples on the track.
+ /**
+ * Renders the track.
  *
- * @param g2d          The Graphics2D object.
- * @param laneHeight   The height of each lane.
- * @param finishLineX  The x-coordinate of the finish line.
+ * @param g The graphics context.
  */
-private void drawApples(Graphics2D g2d, int laneHeight, int finishLineX) {
-
-    int appleTextOffset = 5;
-
-    for (Point applePosition : applePositions) {
-        int appleX = applePosition.x;
-        int appleY = applePosition.y;
-        if (appleX < finishLineX) {
-       
-           
-            g2d.setFont(new Font("Arial", Font.PLAIN, 24));
-            g2d.drawString("🍎", appleX + appleTextOffset, appleY + appleTextOffset);
-        }
+void renderTrack(Graphics g) {
+    CompetitionSnapshot snapshot = trackPanel.getDisplayedSnapshot();
+    if (snapshot == null) {
+        snapshot = engine.getLatestSnapshot();
     }
-}  
-    /**
-     * Draws a steed on the track.
-     *
-     * @param g2d          The Graphics2D object.
-     * @param steed        The steed to draw.
-     * @param steedY       The y-coordinate of the steed.
-     * @param finishLineX  The x-coordinate of the finish line.
-     */
-    private void drawSteed(Graphics2D g2d, UpgradedSteed steed, int steedY, int finishLineX) {
-        int steedX = calculateSteedX(steed, finishLineX);
-        int steedSize = 30;
-        int steedTextOffset = 10;
-
-        g2d.setColor(steed.getStallionColor());
-        g2d.setFont(new Font("Arial", Font.BOLD, steedSize));
-        g2d.drawString(steed.getSymbol(), steedX, steedY);
-
-        g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
-        g2d.drawString(steed.getSteedName(), steedX + steedTextOffset, steedY + steedTextOffset);
-
-        if (steed.hasStumbled()) {
-            g2d.setColor(Color.RED);
-            g2d.setFont(new Font("Arial", Font.BOLD, steedSize));
-            g2d.drawString("X", steedX, steedY);
-        }
-    }
-
-    /**
-     * Calculates the x-coordinate of a steed on the track.
-     *
-     * @param steed        The steed.
-     * @param finishLineX  The x-coordinate of the finish line.
-     * @return The x-coordinate of the steed.
-     */
-    private int calculateSteedX(UpgradedSteed steed, int finishLineX) {
-        int steedProgress = steed.getTrackProgress();
-        int steedX = 50 + (int) ((double) steedProgress / trackLength * (finishLineX - 50));
-        return Math.min(steedX, finishLineX);
+    if (snapshot != null) {
+        trackPanel.renderTrack(g, snapshot);
     }
+}
 
 
     /**
@@ -559,19 +646,20 @@ private void drawApples(Graphics2D g2d, int laneHeight, int finishLineX) {
         Configures the steeds.
         */
         private void configureSteeds() {
-            steeds.clear();
+            steeds.clearField();
             for (int i = 1; i <= numberOfSteeds; i++) {
             UpgradedSteed steed = getSteedConfiguration(i);
             while (steed == null) {
             steed = getSteedConfiguration(i);
             }
             if (steed != null) {
-            steeds.put(steed.getSteedName(), steed);
+            steeds.register(steed);
             }
             }
-            isConfigured = true;
+            engine.setField(steeds);
+            engine.publishSnapshot();
             beginCompetitionButton.setEnabled(true);
-            trackPanel.repaint();
+            showLatestSnapshot();
         }
         
         /**
@@ -775,177 +863,82 @@ private void drawApples(Graphics2D g2d, int laneHeight, int finishLineX) {
         return;
         }
         if (competitionThread != null && competitionThread.isAlive()) {
-        competitionThread.interrupt();
+        return;
         }
-        prepareSteeds();
+        setFieldControlsEnabled(false);
         competitionThread = new Thread(this::simulateCompetition);
         competitionThread.start();
         }
-        
+
         /**
         
-        Prepares the steeds for the competition.
+        Enables or disables the buttons that change the track, the steeds or the
+        gamblers, or start a competition. While a competition runs its thread reads
+        the track length and settles every gambler's stake, and only it may change
+        the engine, so they are disabled until it is over.
+        
+        @param enabled true to enable the buttons.
         */
-        private void prepareSteeds() {
-        for (UpgradedSteed steed : steeds.values()) {
-        steed.resetForNewCompetition();
-        steed.computeVictoryOdds();
-        }
+        private void setFieldControlsEnabled(boolean enabled) {
+        trackLengthButton.setEnabled(enabled);
+        numberOfSteedsButton.setEnabled(enabled);
+        numberOfGamblersButton.setEnabled(enabled);
+        configureSteedsButton.setEnabled(enabled);
+        beginCompetitionButton.setEnabled(enabled);
         }
+        
        /**
- * Simulates the competition.
+ * Simulates the competition, drawing every tick unless instant results are
+ * chosen, in which case the rest of it is played straight through.
+ * Only this thread changes the engine while it runs; the track is drawn from
+ * the snapshot published after each tick, repainting only where it changed.
+ * The buttons that change the field are enabled again once it is over.
  */
 private void simulateCompetition() {
+    try {
+        playCompetition();
+    } finally {
+        SwingUtilities.invokeLater(() -> setFieldControlsEnabled(true));
+    }
+}
+
+/**
+ * Plays a competition on the competition thread and records its result.
+ */
+private void playCompetition() {
+    engine.setTrackLength(trackLength);
+    engine.startCompetition();
+    engine.publishSnapshot();
+    SwingUtilities.invokeLater(trackRepainter);
+
     boolean competitionFinished = false;
-    generateApples();
+    tickScheduler.start();
     while (!competitionFinished) {
-        for (UpgradedSteed steed : steeds.values()) {
-            if (!steed.hasStumbled() && !steed.isChampion()) {
-                advanceSteed(steed);
-                checkSteedProgress(steed);
-                checkAppleConsumption(steed);
-            }
-        }
-        trackPanel.repaint();
-
-        if (isCompetitionFinished()) {
-            competitionFinished = true;
+        if (instantResults) {
+            engine.runToFinish();
+            engine.publishSnapshot();
+            SwingUtilities.invokeLater(trackRepainter);
+            break;
         }
+        competitionFinished = engine.playTick();
+        engine.publishSnapshot();
+        SwingUtilities.invokeLater(trackRepainter);
 
         try {
-            Thread.sleep(100);
+            tickScheduler.awaitNextTick();
         } catch (InterruptedException e) {
             break;
         }
     }
-    UpgradedSteed championSteed = getChampionSteed();
+    UpgradedSteed championSteed = engine.getChampion();
     displayCompetitionResult(championSteed);
     updateSteedStatistics(championSteed);
     settleGamblerStakes(championSteed);
     updateCompetitionStatistics();
     updateGamblerStatsDisplay();
     updateStatisticsGraphs();
-    applePositions.clear();
 }
- 
-/**
- * Generates apples on the track.
- */
-private void generateApples() {
-    int numApples = 2;
-    int laneHeight = trackPanel.getHeight() / (steeds.size() + 1);
 
-    for (int i = 0; i < numApples; i++) {
-        int laneIndex = (int) (Math.random() * steeds.size());
-        int laneY = (laneIndex + 1) * laneHeight;
-        int appleY = laneY - laneHeight / 2;
-
-        UpgradedSteed steed = new ArrayList<>(steeds.values()).get(laneIndex);
-        int steedX = calculateSteedX(steed, trackPanel.getWidth() - 100);
-        int appleX = steedX + (int) (Math.random() * (trackLength - steedX - 50));
-
-        applePositions.add(new Point(appleX, appleY));
-    }
-}
-    /**
-     
-    Advances a steed in the competition.
-    
-    @param steed The steed to advance.
-    */
-    private void advanceSteed(UpgradedSteed steed) {
-    double randomValue = Math.random();
-    if (randomValue < 0.02) {
-    steed.stumble();
-    } else {
-    steed.gallop();
-    }
-    }
-    
-    /**
-     
-    Checks the progress of a steed.
-    
-    @param steed The steed to check.
-    */
-    private void checkSteedProgress(UpgradedSteed steed) {
-    if (steed.getTrackProgress() >= trackLength) {
-    steed.setChampion(true);
-    }
-    }
- 
- /**
- * Checks if a steed consumes an apple.
- *
- * @param steed The steed to check.
- */
-private void checkAppleConsumption(UpgradedSteed steed) {
-    int steedX = calculateSteedX(steed, trackPanel.getWidth() - 100);
-    int steedY = getSteedY(steed);
-    Iterator<Point> iterator = applePositions.iterator();
-    while (iterator.hasNext()) {
-        Point applePosition = iterator.next();
-        if (isAppleConsumed(steedX, steedY, applePosition)) {
-          
-            steed.eatApple();
-            iterator.remove();
-            for(int i=0; i<3; i++){
-                steed.gallop();
-            }
-            trackPanel.repaint(); // Repaint the track to reflect the changes
-            break; // Only consume one apple per iteration
-        }
-    }
-}
-    
-private boolean isAppleConsumed(int steedX, int steedY, Point applePosition) {
-    
-    int appleX = applePosition.x;
-    int appleY = applePosition.y+120;
-    int tolerance = 25; // Adjust the tolerance value as needed
-
-    return Math.abs(steedX - appleX) <= tolerance && Math.abs(steedY - appleY) <= tolerance;
-}
- /**
- 
- Gets the y-coordinate of a steed on the track.
- 
- @param steed The steed.
-
-@return The y-coordinate of the steed.
-*/
-private int getSteedY(UpgradedSteed steed) {
-    int numSteeds = steeds.size();
-    int steedIndex = new ArrayList<>(steeds.values()).indexOf(steed);
-    int trackHeight = trackPanel.getHeight() - 100;
-    int steedSpacing = trackHeight / (numSteeds + 1);
-    return 50 + (steedIndex + 1) * steedSpacing;
-    }
-    
-    /**
-    
-    Checks if the competition is finished.
-    
-    @return true if the competition is finished, false otherwise.
-    */
-    private boolean isCompetitionFinished() {
-        return steeds.values().stream().anyMatch(UpgradedSteed::isChampion)
-        || steeds.values().stream().allMatch(UpgradedSteed::hasStumbled);
-    }
-    
-    /**
-    
-    Gets the champion steed of the competition.
-    
-    @return The champion steed, or null if there is no champion.
-    */
-    private UpgradedSteed getChampionSteed() {
-        return steeds.values().stream()
-        .filter(UpgradedSteed::isChampion)
-        .findFirst()
-        .orElse(null);
-    }
-    
     /**
     
     Displays the result of the competition.
@@ -971,7 +964,7 @@ private int getSteedY(UpgradedSteed steed) {
         championSteed.incrementTriumphs();
         championSteed.updateAptitudeLevel(10);
         }
-        for (UpgradedSteed steed : steeds.values()) {
+        for (UpgradedSteed steed : steeds.getField()) {
         steed.resetForNewCompetition();
         steed.computeVictoryOdds();
         }
@@ -994,7 +987,7 @@ private int getSteedY(UpgradedSteed steed) {
     Updates the competition statistics.
     */
     private void updateCompetitionStatistics() {
-        for (UpgradedSteed steed : steeds.values()) {
+        for (UpgradedSteed steed : steeds.getField()) {
         steed.incrementTotalCompetitions();
         steed.updateRecordTime(steed.getTrackProgress() / 100.0);
         steed.updateTotalTrackLength(trackLength);
@@ -1015,7 +1008,7 @@ private int getSteedY(UpgradedSteed steed) {
     if (option == JOptionPane.OK_OPTION) {
     String selectedSteedName = getSelectedSteedName(stakePanel);
     double stakeAmount = getStakeAmount(stakePanel);
-    UpgradedSteed selectedSteed = steeds.get(selectedSteedName);
+    UpgradedSteed selectedSteed = steeds.findByName(selectedSteedName);
     if (selectedSteed != null) {
         boolean stakeSuccessful = gambler.placeStake(selectedSteed, stakeAmount);
         if (!stakeSuccessful) {
@@ -1034,7 +1027,7 @@ private int getSteedY(UpgradedSteed steed) {
     private JPanel createStakePanel() {
         JPanel panel = new JPanel(new GridLayout(0, 2));
         panel.add(new JLabel("Select Steed:"));
-        panel.add(new JComboBox<>(steeds.values().toArray(new UpgradedSteed[0])));
+        panel.add(new JComboBox<>(steeds.getField().toArray(new UpgradedSteed[0])));
         panel.add(new JLabel("Stake Amount:"));
         panel.add(new JTextField());
         return panel;
@@ -1102,9 +1095,9 @@ Views the gambling history.
         UpgradedGambler gambler = entry.getValue();
         historyBuilder.append("Gambler ").append(gamblerIndex).append(":\n");
 
-        for (Map.Entry<UpgradedSteed, ArrayList<UpgradedGambler.Stake>> stakeEntry : gambler.getGamblingHistory().entrySet()) {
-            UpgradedSteed steed = stakeEntry.getKey();
-            List<UpgradedGambler.Stake> stakes = stakeEntry.getValue();
+        for (int steedId = 0; steedId < steeds.getNumberOfSteeds(); steedId++) {
+            UpgradedSteed steed = steeds.getSteed(steedId);
+            List<UpgradedGambler.Stake> stakes = gambler.getStakes(steedId);
 
             for (UpgradedGambler.Stake stake : stakes) {
                 historyBuilder.append("- Steed: ").append(steed.getSteedName());
@@ -1169,32 +1162,43 @@ private void updateGamblerStatsDisplay() {
     Updates the statistics graphs.
     */
     private void updateStatisticsGraphs() {
-        victoryGraph.removeAll();
-        aptitudeGraph.removeAll();
-        recordTimeGraph.removeAll();
-        oddsGraph.removeAll();
-            for (UpgradedSteed steed : steeds.values()) {
-                victoryGraph.addBarData(steed.getStallionColor(), steed.getTriumphCount(), steed.getSteedName());
-                aptitudeGraph.addBarData(steed.getStallionColor(), steed.getAptitudeLevel(), steed.getSteedName());
-                recordTimeGraph.addBarData(steed.getStallionColor(), steed.getRecordTime(), steed.getSteedName());
-                oddsGraph.addBarData(steed.getStallionColor(), steed.getVictoryOdds(), steed.getSteedName());
+        SwingUtilities.invokeLater(() -> {
+            Set<Integer> field = new HashSet<>();
+            for (UpgradedSteed steed : steeds.getField()) {
+                field.add(steed.getId());
+                victoryGraph.setBarData(steed.getId(), steed.getStallionColor(), steed.getTriumphCount(), steed.getSteedName());
+                aptitudeGraph.setBarData(steed.getId(), steed.getStallionColor(), steed.getAptitudeLevel(), steed.getSteedName());
+                recordTimeGraph.setBarData(steed.getId(), steed.getStallionColor(), steed.getRecordTime(), steed.getSteedName());
+                oddsGraph.setBarData(steed.getId(), steed.getStallionColor(), steed.getVictoryOdds(), steed.getSteedName());
+            }
+            // steeds that have left the field lose their bars
+            victoryGraph.getModel().retainSeries(field);
+            aptitudeGraph.getModel().retainSeries(field);
+            recordTimeGraph.getModel().retainSeries(field);
+            oddsGraph.getModel().retainSeries(field);
+
+            for (UpgradedSteed steed : steeds.getField()) {
+                oddsTrend.setPoint(steed.getId(), steed.getStallionColor(), steed.getVictoryOdds());
+                aptitudeTrend.setPoint(steed.getId(), steed.getStallionColor(), steed.getAptitudeLevel());
             }
-        victoryGraph.repaint();
-        aptitudeGraph.repaint();
-        recordTimeGraph.repaint();
-        oddsGraph.repaint();
+            oddsTrend.retainSeries(field);
+            aptitudeTrend.retainSeries(field);
+            oddsTrend.commitRace();
+            aptitudeTrend.commitRace();
+        });
     }
 
 /**
 
 The main method to run the Upgraded Competition Arena.
 
-@param args The command line arguments.
+@param args The command line arguments; an optional seed to replay competitions with.
 */
 public static void main(String[] args) {
+RandomGenerator randomSource = args.length > 0 ? new SplittableRandom(Long.parseLong(args[0])) : new SplittableRandom();
 SwingUtilities.invokeLater(() -> {
 try {
-new UpgradedCompetitionArena();
+new UpgradedCompetitionArena(randomSource);
 } catch (IOException e) {
 e.printStackTrace();
 }
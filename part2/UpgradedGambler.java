@@ -1,5 +1,6 @@
-import java.util.Map;
-import java.util.HashMap;
+package part2;
+
+import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -7,7 +8,8 @@ public class UpgradedGambler {
     private double funds;
     private int totalTriumphs;
     private double totalEarnings;
-    private Map<UpgradedSteed, ArrayList<Stake>> gamblingHistory;
+    // the stakes placed on each steed, indexed by the steed's id
+    private ArrayList<ArrayList<Stake>> gamblingHistory;
     private Stake currentStake;
 
     /**
@@ -19,21 +21,32 @@ public class UpgradedGambler {
         this.funds = initialFunds;
         this.totalTriumphs = 0;
         this.totalEarnings = 0;
-        this.gamblingHistory = new HashMap<>();
+        this.gamblingHistory = new ArrayList<>();
     }
 
     /**
      * Places a stake on a steed.
      *
-     * @param steed         The steed to place the stake on.
+     * @param steed         The steed to place the stake on, which must have been registered.
      * @param stakeAmount   The amount of the stake.
      * @return true if the stake is placed successfully, false otherwise.
      */
     public boolean placeStake(UpgradedSteed steed, double stakeAmount) {
+        if (steed.getId() < 0) {
+            throw new IllegalArgumentException("Stakes can only be placed on registered steeds");
+        }
         if (funds >= stakeAmount) {
             funds -= stakeAmount;
             currentStake = new Stake(steed, stakeAmount);
-            gamblingHistory.computeIfAbsent(steed, h -> new ArrayList<>()).add(currentStake);
+            while (gamblingHistory.size() <= steed.getId()) {
+                gamblingHistory.add(null);
+            }
+            ArrayList<Stake> stakes = gamblingHistory.get(steed.getId());
+            if (stakes == null) {
+                stakes = new ArrayList<>();
+                gamblingHistory.set(steed.getId(), stakes);
+            }
+            stakes.add(currentStake);
             return true;
         }
         return false;
@@ -45,7 +58,7 @@ public class UpgradedGambler {
      * @param championSteed   The champion steed of the competition.
      */
     public void settleStake(UpgradedSteed championSteed) {
-        if (currentStake != null && championSteed != null && championSteed.equals(currentStake.getSteed())) {
+        if (currentStake != null && championSteed != null && championSteed.getId() == currentStake.getSteed().getId()) {
             double earnings = currentStake.getAmount() * championSteed.getVictoryOdds();
             funds += earnings + currentStake.getAmount();
             totalTriumphs++;
@@ -83,12 +96,27 @@ public class UpgradedGambler {
     }
 
     /**
-     * Returns the gambling history of the gambler.
+     * Returns the stakes the gambler has placed on a steed.
      *
-     * @return The gambling history of the gambler.
+     * @param steedId The id of the steed.
+     * @return The stakes placed on the steed, oldest first, which cannot be changed.
      */
-    public Map<UpgradedSteed, ArrayList<Stake>> getGamblingHistory() {
-        return gamblingHistory;
+    public List<Stake> getStakes(int steedId) {
+        if (steedId >= gamblingHistory.size() || gamblingHistory.get(steedId) == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(gamblingHistory.get(steedId));
+    }
+
+    /**
+     * Removes the newest stake placed on a steed from the history, leaving the
+     * funds and totals as they are, so a history can be kept the same size.
+     *
+     * @param steedId The id of the steed, which must have a stake placed on it.
+     */
+    void removeLastStake(int steedId) {
+        ArrayList<Stake> stakes = gamblingHistory.get(steedId);
+        stakes.remove(stakes.size() - 1);
     }
 
     /**
@@ -97,7 +125,12 @@ public class UpgradedGambler {
      * @return The win percentage of the gambler.
      */
     public double getWinPercentage() {
-        int totalStakes = gamblingHistory.values().stream().mapToInt(List::size).sum();
+        int totalStakes = 0;
+        for (ArrayList<Stake> stakes : gamblingHistory) {
+            if (stakes != null) {
+                totalStakes += stakes.size();
+            }
+        }
         return totalStakes > 0 ? (double) totalTriumphs / totalStakes * 100 : 0;
     }
 
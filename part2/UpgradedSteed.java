@@ -1,4 +1,8 @@
+package part2;
+
 import java.awt.Color;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -10,13 +14,15 @@ public class UpgradedSteed {
     private double aptitudeLevel;
     private boolean isChampion;
     private Color stallionColor;
-    private Set<String> gear;
+    private final Set<String> gear;
     private int triumphCount;
     private double totalAptitudeLevel;
     private int totalCompetitions;
     private double recordTime;
     private double totalTrackLength;
     private double victoryOdds;
+    private final double gearBonus;
+    private int id = -1;
 
     private static final Map<String, Double> GEAR_BONUSES = Map.of(
         "Armor", 1.1,
@@ -42,7 +48,7 @@ public class UpgradedSteed {
         this.symbol = symbol;
         this.aptitudeLevel = aptitudeLevel;
         this.stallionColor = stallionColor;
-        this.gear = gear;
+        this.gear = Collections.unmodifiableSet(new LinkedHashSet<>(gear));
         this.trackProgress = 0;
         this.hasStumbled = false;
         this.isChampion = false;
@@ -52,6 +58,7 @@ public class UpgradedSteed {
         this.recordTime = Double.MAX_VALUE;
         this.totalTrackLength = 0;
         this.victoryOdds = 1.0;
+        this.gearBonus = computeGearBonus();
     }
 
     /**
@@ -87,6 +94,24 @@ public class UpgradedSteed {
         return steedName;
     }
 
+    /**
+     * Returns the id the steed was given when it was first registered.
+     *
+     * @return The id of the steed, or -1 if it has never been registered.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the steed. Only the steed registry gives out ids.
+     *
+     * @param id The id of the steed.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Returns the symbol representing the steed.
      *
@@ -142,7 +167,7 @@ public class UpgradedSteed {
     }
 
     /**
-     * Returns the set of gear worn by the steed.
+     * Returns the set of gear worn by the steed, which cannot be changed.
      *
      * @return The set of gear worn by the steed.
      */
@@ -198,17 +223,18 @@ public class UpgradedSteed {
      */
     public void gallop() {
         if (!hasStumbled && !isChampion) {
-            double gearBonus = computeGearBonus();
             trackProgress += 5 + gearBonus;
         }
     }
 
     /**
-     * Calculates the gear bonus for the steed.
+     * Calculates the gear bonus for the steed. The gear is copied when the
+     * steed is created and cannot be changed after, so gallop uses the bonus
+     * worked out then.
      *
      * @return The gear bonus for the steed.
      */
-    private double computeGearBonus() {
+    final double computeGearBonus() {
         double bonus = 0;
         for (String item : gear) {
             bonus += GEAR_BONUSES.getOrDefault(item, 0.0);